@@ -2,11 +2,9 @@
 
 package com.expense.app;
 
-import com.expense.model.Transaction;
+import com.expense.model.Money;
 import com.expense.service.ExpenseService;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 
 public class Main {
@@ -52,9 +50,12 @@ public class Main {
                         System.out.println("Saved.");
                         break;
                     case 2:
-                        List<Transaction> list = service.getAll();
-                        if (list.isEmpty()) System.out.println("No transactions yet.");
-                        else list.forEach(t -> System.out.println(t.getDate() + " | " + t.getAmount() + " | " + t.getDescription() + " | " + t.getCategory()));
+                        int[] printed = { 0 };
+                        service.forEachTransaction(t -> {
+                            System.out.println(t.getDate() + " | " + Money.toPlainString(t.amountMinor) + " | " + t.description + " | " + t.category);
+                            printed[0]++;
+                        });
+                        if (printed[0] == 0) System.out.println("No transactions yet.");
                         break;
                     case 3:
                         System.out.println("Bye.");
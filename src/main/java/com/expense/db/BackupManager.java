@@ -0,0 +1,218 @@
+// File: src/main/java/com/expense/db/BackupManager.java
+
+package com.expense.db;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time snapshots of the live database using SQLite's online backup API.
+ * Pages are copied a few hundred at a time with a short pause in between, on a background thread,
+ * so readers and the writer keep going while a snapshot is taken. Snapshots are written under a
+ * temporary name and only renamed into place once complete; the oldest are pruned past the retention count.
+ */
+public class BackupManager {
+    private static final String PREFIX = "expenses-";
+    private static final String SUFFIX = ".db";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // --- PACING ---
+    private static final int PAGES_PER_STEP = 256;       // 1 MB per step at the default 4 KB page size
+    private static final long PAUSE_BETWEEN_STEPS_MILLIS = 5;
+    private static final int BUSY_SLEEP_MILLIS = 50;
+    private static final int BUSY_RETRIES = 200;
+    // SQLite restarts a backup when another connection writes to the source mid-copy;
+    // after this many restarts the pauses are dropped so a busy ledger can't starve the snapshot
+    private static final int PACED_RESTARTS = 3;
+    private static final Duration FIRST_SCHEDULED_CHECK = Duration.ofMinutes(1);
+    private static final Duration MAX_CHECK_PERIOD = Duration.ofHours(1);
+
+    private final Path directory;
+    private final int retention;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "expense-backup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private ScheduledFuture<?> schedule;
+
+    public BackupManager(Path directory, int retention) {
+        this.directory = directory;
+        this.retention = retention;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Takes a snapshot on the backup thread; the future yields the snapshot file. */
+    public CompletableFuture<Path> backupNow() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return takeSnapshot();
+            } catch (SQLException | IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Makes sure a snapshot at most {@code interval} old exists while the app runs. Checks shortly
+     * after start-up and then periodically, so short sessions still get backed up.
+     */
+    public synchronized void scheduleEvery(Duration interval) {
+        if (schedule != null) schedule.cancel(false);
+        long periodMillis = Math.min(interval.toMillis(), MAX_CHECK_PERIOD.toMillis());
+        schedule = executor.scheduleWithFixedDelay(() -> {
+            try {
+                List<Path> existing = listSnapshots();
+                LocalDateTime newest = existing.isEmpty() ? null : timestampOf(existing.get(0));
+                if (newest == null || newest.plus(interval).isBefore(LocalDateTime.now())) takeSnapshot();
+            } catch (SQLException | IOException | RuntimeException e) {
+                // A failed scheduled backup must not cancel the schedule; the next check tries again
+                e.printStackTrace();
+            }
+        }, FIRST_SCHEDULED_CHECK.toMillis(), periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Completed snapshots, newest first. */
+    public List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return snapshots;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path p : stream) {
+                if (timestampOf(p) != null) snapshots.add(p);
+            }
+        }
+        snapshots.sort(Comparator.comparing(BackupManager::timestampOf).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Replaces the live database with a snapshot. The copy runs alone on the writer thread, between
+     * write groups, so no other write runs during it; readers may still be mid-query, and the copy
+     * waits out their locks. Every pooled connection is retired afterwards. Callers must drop anything
+     * they cached from the old database and re-run migrations, as the snapshot may predate the schema.
+     */
+    public void restore(Path snapshot) throws SQLException {
+        verify(snapshot);
+        DatabaseWriter.get().executeAlone(conn -> {
+            try (Connection target = Database.connect()) {
+                DB db = target.unwrap(SQLiteConnection.class).getDatabase();
+                int rc = db.restore("main", snapshot.toAbsolutePath().toString(), null, BUSY_SLEEP_MILLIS, BUSY_RETRIES, PAGES_PER_STEP);
+                if (rc != 0) throw new SQLException("Restore from " + snapshot.getFileName() + " failed with SQLite error " + rc);
+            }
+            Database.discardPooledConnections();
+            return null;
+        });
+    }
+
+    // --- INTERNALS ---
+
+    private Path takeSnapshot() throws SQLException, IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(PREFIX + STAMP.format(LocalDateTime.now()) + SUFFIX);
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        Files.deleteIfExists(partial);
+        try (Connection source = Database.connect()) {
+            DB db = source.unwrap(SQLiteConnection.class).getDatabase();
+            int rc = db.backup("main", partial.toAbsolutePath().toString(), new Pacer(), BUSY_SLEEP_MILLIS, BUSY_RETRIES, PAGES_PER_STEP);
+            if (rc != 0) throw new SQLException("Backup failed with SQLite error " + rc);
+            seal(partial);
+        } catch (SQLException e) {
+            deleteWithSideFiles(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+        return target;
+    }
+
+    private void prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = retention; i < snapshots.size(); i++) {
+            deleteWithSideFiles(snapshots.get(i));
+        }
+    }
+
+    /**
+     * The copy inherits the live database's WAL mode; switch it to a rollback journal so the snapshot
+     * is one self-contained file, then check it before it is allowed to count as a backup.
+     */
+    private static void seal(Path snapshot) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + snapshot.toAbsolutePath());
+             Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode = DELETE");
+        }
+        verify(snapshot);
+    }
+
+    private static void deleteWithSideFiles(Path snapshot) throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(snapshot.resolveSibling(snapshot.getFileName() + "-wal"));
+        Files.deleteIfExists(snapshot.resolveSibling(snapshot.getFileName() + "-shm"));
+    }
+
+    /** Refuses files that are not intact SQLite databases before they can replace the live one. */
+    private static void verify(Path snapshot) throws SQLException {
+        if (!Files.isRegularFile(snapshot)) throw new SQLException("Backup not found: " + snapshot);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:file:" + snapshot.toAbsolutePath() + "?mode=ro");
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA quick_check")) {
+            String result = rs.next() ? rs.getString(1) : null;
+            if (!"ok".equals(result)) throw new SQLException("Backup " + snapshot.getFileName() + " is damaged: " + result);
+        }
+    }
+
+    private static LocalDateTime timestampOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return null;
+        try {
+            return LocalDateTime.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), STAMP);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Called by SQLite after every step: yields between steps until the copy keeps getting restarted. */
+    private static final class Pacer implements DB.ProgressObserver {
+        private int lastRemaining = Integer.MAX_VALUE;
+        private int restarts = 0;
+
+        @Override
+        public void progress(int remaining, int pageCount) {
+            if (remaining > lastRemaining) restarts++;
+            lastRemaining = remaining;
+            if (remaining == 0 || restarts >= PACED_RESTARTS) return;
+            try {
+                Thread.sleep(PAUSE_BETWEEN_STEPS_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -2,16 +2,180 @@
 
 package com.expense.db;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Database {
-    private static final String DB_URL = "jdbc:sqlite:expenses.db";
+    public static final String DB_FILE = "expenses.db";
+    private static final String URL_PREFIX = "jdbc:sqlite:";
+    // Overridable with -Dexpense.db.url, e.g. to point a batch job at a copy of the data
+    private static volatile String url = System.getProperty("expense.db.url", URL_PREFIX + DB_FILE);
 
+    // --- IN-MEMORY DATABASE ---
+    // A shared-cache memory database lives only while some connection to it is open, so one is held
+    // for as long as it is in use; pooled connections can then come and go (and be discarded) freely.
+    private static final String IN_MEMORY_URL = "jdbc:sqlite:file:expenses?mode=memory&cache=shared";
+    private static Connection keepAlive;
+
+    // --- PERFORMANCE PROFILE ---
+    // Chosen with -Dexpense.db.profile=safe|balanced|bulk-load, switchable at runtime.
+    private static volatile SqliteProfile profile =
+            SqliteProfile.fromName(System.getProperty("expense.db.profile"), SqliteProfile.BALANCED);
+
+    // --- CONNECTION POOL ---
+    // SQLite only allows one writer at a time, so a handful of connections is plenty.
+    private static final int POOL_SIZE = 4;
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    private static final Semaphore permits = new Semaphore(POOL_SIZE, true);
+    private static final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    // Bumped when the database file is replaced; connections from an older generation are closed, not reused
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    /** Opens a new, unpooled connection. Prefer {@link #borrow()} for regular queries. */
     public static Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        Connection conn = open(url);
+        profile.applyTo(conn);
+        return conn;
+    }
+
+    public static String getUrl() {
+        return url;
+    }
+
+    /** The file the database lives in, or null when it is in memory (or a temporary, unnamed one). */
+    public static Path getFile() {
+        String current = url;
+        if (isInMemory(current) || !current.startsWith(URL_PREFIX)) return null;
+        String path = current.substring(URL_PREFIX.length());
+        if (path.startsWith("file:")) path = path.substring("file:".length());
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        return path.isEmpty() ? null : Paths.get(path);
+    }
+
+    /**
+     * Points every connection handed out from now on at another database. Pooled connections to the
+     * old one are retired as they would be after a restore. Meant to be called once, before first use.
+     */
+    public static synchronized void useUrl(String newUrl) throws SQLException {
+        if (newUrl.equals(url)) return;
+        Connection previous = keepAlive;
+        keepAlive = isInMemory(newUrl) ? open(newUrl) : null;
+        url = newUrl;
+        discardPooledConnections();
+        if (previous != null) previous.close();
+    }
+
+    /** Switches to a private in-memory database that disappears when the process exits. */
+    public static void useInMemoryDatabase() {
+        try {
+            useUrl(IN_MEMORY_URL);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open the in-memory database.", e);
+        }
+    }
+
+    private static boolean isInMemory(String url) {
+        return url.contains(":memory:") || url.contains("mode=memory");
+    }
+
+    private static Connection open(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        if (isInMemory(url)) {
+            // Shared-cache connections lock whole tables and fail instead of waiting on busy_timeout;
+            // without read locks a long read can't make the writer's commit fail with SQLITE_LOCKED
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA read_uncommitted = true");
+            }
+        }
+        return conn;
+    }
+
+    public static SqliteProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Switches the active profile and returns the previous one so callers can restore it.
+     * Pooled connections pick up the new settings the next time they are borrowed.
+     */
+    public static SqliteProfile switchProfile(SqliteProfile newProfile) {
+        SqliteProfile previous = profile;
+        profile = newProfile;
+        return previous;
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle connection is available.
+     * Use it in a try-with-resources block; closing it returns it to the pool.
+     */
+    public static PooledConnection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        try {
+            PooledConnection pc;
+            SqliteProfile current = profile;
+            while ((pc = idle.pollFirst()) != null) {
+                if (pc.isReusable()) {
+                    pc.ensureProfile(current);
+                    pc.checkOut();
+                    return pc;
+                }
+                pc.closePhysically();
+            }
+            pc = new PooledConnection(open(url), generation.get());
+            pc.ensureProfile(current);
+            pc.checkOut();
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    static void release(PooledConnection pc) {
+        pc.reset();
+        if (pc.isReusable()) {
+            idle.offerFirst(pc); // LIFO keeps the warmest connection and its statement cache in use
+        } else {
+            pc.closePhysically();
+        }
+        permits.release();
+    }
+
+    static int currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Retires every pooled connection, e.g. after the database file has been restored from a backup.
+     * Idle ones are closed now; connections still borrowed are closed when they are returned.
+     */
+    public static void discardPooledConnections() {
+        generation.incrementAndGet();
+        closeIdleConnections();
+    }
+
+    /** Closes every idle pooled connection, e.g. on application shutdown. */
+    public static void closeIdleConnections() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            pc.closePhysically();
+        }
     }
 
     public static void createTables() throws SQLException {
@@ -43,7 +207,7 @@ public class Database {
                 "current_amount REAL NOT NULL DEFAULT 0.0, " +
                 "target_date_timestamp INTEGER)"; // Optional target date
 
-        try (Connection conn = connect();
+        try (PooledConnection conn = borrow();
              Statement st = conn.createStatement()) {
 
             st.executeUpdate(transactionsTableSql);
@@ -51,5 +215,8 @@ public class Database {
             st.executeUpdate(recurringTransactionsTableSql);
             st.executeUpdate(savingsGoalsTableSql); // Create the new table
         }
+
+        // Indexes and later schema changes are versioned migrations on top of these base tables
+        SchemaMigrator.migrate();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,342 @@
+// File: src/main/java/com/expense/db/DatabaseWriter.java
+
+package com.expense.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single thread every mutation runs on. Writes are queued (bounded, so a runaway producer
+ * waits instead of exhausting memory) and writes that arrive within a short window are committed
+ * together in one transaction: one commit and one fsync for the group instead of one per write.
+ * Each write runs inside its own savepoint, so a failing write is rolled back and reported
+ * on its own future without taking the rest of the group down with it.
+ */
+public final class DatabaseWriter {
+
+    /** A unit of work run on the writer's connection, inside the current group transaction. */
+    @FunctionalInterface
+    public interface Write<T> {
+        T apply(PooledConnection conn) throws SQLException;
+    }
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_GROUP_SIZE = 256;
+    // A group stays open while writes keep arriving less than LINGER apart, for at most MAX_WINDOW
+    private static final long LINGER_MICROS = 200;
+    private static final long MAX_WINDOW_MICROS = 2000;
+
+    private static final DatabaseWriter INSTANCE = new DatabaseWriter();
+
+    private final BlockingQueue<PendingWrite<?>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Runnable> rollbackListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>(); // writer thread only
+    private final Thread thread;
+    private PooledConnection current; // only touched by the writer thread, set while a group is open
+    private int savepoints = 0;
+
+    private DatabaseWriter() {
+        thread = new Thread(this::runLoop, "expense-db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static DatabaseWriter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a write and returns a future completed once the group containing it has committed.
+     * Blocks while the queue is full. Called from inside another write, it runs inline; called from
+     * the writer thread outside one (an after-commit action, a rollback listener), it is queued for a
+     * later group, and must not be waited for.
+     */
+    public <T> CompletableFuture<T> submit(Write<T> write) {
+        if (Thread.currentThread() == thread && current != null) {
+            try {
+                return CompletableFuture.completedFuture(runInSavepoint(write));
+            } catch (SQLException | RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return enqueue(new PendingWrite<>(write, false));
+    }
+
+    /** Submits a write and waits for it to commit, rethrowing its SQLException as is. */
+    public <T> T execute(Write<T> write) throws SQLException {
+        if (Thread.currentThread() == thread && current == null) {
+            // The write would be queued behind the thread that is waiting for it
+            throw new IllegalStateException("execute can't wait on the writer thread outside a write; use submit.");
+        }
+        return await(submit(write));
+    }
+
+    /**
+     * Runs a write on the writer thread by itself, outside any group transaction, and waits for it.
+     * For work SQLite refuses inside a transaction, such as ATTACH; the write manages its own
+     * transactions. No other write runs while it does.
+     */
+    public <T> T executeAlone(Write<T> write) throws SQLException {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("executeAlone can't be nested inside another write.");
+        }
+        return await(enqueue(new PendingWrite<>(write, true)));
+    }
+
+    private <T> CompletableFuture<T> enqueue(PendingWrite<T> pending) {
+        if (Thread.currentThread() == thread) {
+            // Waiting for room would wait on this very thread to drain the queue
+            if (!queue.offer(pending)) {
+                return CompletableFuture.failedFuture(new SQLException("The write queue is full."));
+            }
+            return pending.future;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new SQLException("Interrupted while queueing a write.", e));
+        }
+        return pending.future;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a write to commit.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * From inside a write, schedules an action to run on the writer thread once the group has
+     * committed and before any of its futures complete. Dropped if the write is rolled back.
+     * Keeps in-memory copies of the data applied in exactly the order the database saw the writes.
+     */
+    public void afterCommit(Runnable action) {
+        if (Thread.currentThread() != thread || current == null) {
+            throw new IllegalStateException("afterCommit can only be called from inside a write.");
+        }
+        afterCommit.add(action);
+    }
+
+    /**
+     * Registers a callback run on the writer thread whenever work is rolled back, so in-process
+     * caches filled by a write (e.g. newly created ids) can be dropped before the next write runs.
+     */
+    public void addRollbackListener(Runnable listener) {
+        rollbackListeners.add(listener);
+    }
+
+    // --- WRITER THREAD ---
+
+    private void runLoop() {
+        List<PendingWrite<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (true) {
+            try {
+                group.add(queue.take());
+                // Give concurrent writers a moment to join this group, but stop as soon as they go quiet
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(MAX_WINDOW_MICROS);
+                while (group.size() < MAX_GROUP_SIZE) {
+                    if (queue.drainTo(group, MAX_GROUP_SIZE - group.size()) > 0) continue;
+                    long wait = Math.min(TimeUnit.MICROSECONDS.toNanos(LINGER_MICROS), deadline - System.nanoTime());
+                    PendingWrite<?> next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) break;
+                    group.add(next);
+                }
+                runGroup(group);
+            } catch (InterruptedException e) {
+                // Daemon thread: nothing to shut down, keep serving
+            } catch (Throwable e) {
+                // Whatever escaped the group (an Error from an after-commit action, say) fails the writes
+                // still waiting on it; the thread lives on, since every later write depends on it
+                afterCommit.clear();
+                group.forEach(pending -> pending.fail(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /** Commits the writes in arrival order, splitting the group around any that must run alone. */
+    private void runGroup(List<PendingWrite<?>> group) {
+        List<PendingWrite<?>> batch = new ArrayList<>(group.size());
+        for (PendingWrite<?> pending : group) {
+            if (!pending.alone) {
+                batch.add(pending);
+                continue;
+            }
+            if (!batch.isEmpty()) commitGroup(batch);
+            batch.clear();
+            runAlone(pending);
+        }
+        if (!batch.isEmpty()) commitGroup(batch);
+    }
+
+    private void runAlone(PendingWrite<?> pending) {
+        try (PooledConnection conn = Database.borrow()) {
+            current = conn;
+            try {
+                pending.runAlone(conn);
+            } catch (Throwable e) {
+                afterCommit.clear();
+                // The write may have failed half-way through its own transactions; don't reuse its connection
+                conn.markBroken();
+                notifyRollback();
+                pending.fail(e);
+                return;
+            } finally {
+                current = null;
+            }
+            runAfterCommitActions();
+            pending.complete();
+        } catch (SQLException | RuntimeException e) {
+            pending.fail(e);
+        }
+    }
+
+    private void commitGroup(List<PendingWrite<?>> group) {
+        try (PooledConnection conn = Database.borrow()) {
+            Connection raw = conn.raw();
+            raw.setAutoCommit(false);
+            current = conn;
+            try {
+                for (PendingWrite<?> pending : group) {
+                    pending.run(this);
+                }
+                raw.commit();
+            } catch (Throwable e) {
+                // Errors too: restoring autocommit below would otherwise commit the half-run group
+                afterCommit.clear();
+                rollbackQuietly(raw);
+                notifyRollback();
+                group.forEach(pending -> pending.fail(e));
+                return;
+            } finally {
+                current = null;
+                try {
+                    raw.setAutoCommit(true);
+                } catch (SQLException e) {
+                    conn.markBroken();
+                }
+            }
+            runAfterCommitActions();
+            group.forEach(PendingWrite::complete);
+        } catch (SQLException | RuntimeException e) {
+            // Could not even get a connection; fail every write that was waiting on this group
+            group.forEach(pending -> pending.fail(e));
+        }
+    }
+
+    private <T> T runInSavepoint(Write<T> write) throws SQLException {
+        // Named by nesting depth, so the pooled connection's statement cache only ever holds a few of them
+        String name = "w" + (++savepoints);
+        int actionsBefore = afterCommit.size();
+        try {
+            current.prepare("SAVEPOINT " + name).execute();
+            try {
+                T result = write.apply(current);
+                current.prepare("RELEASE " + name).execute();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    current.prepare("ROLLBACK TO " + name).execute();
+                    current.prepare("RELEASE " + name).execute();
+                } catch (SQLException rollbackFailure) {
+                    rollbackFailure.addSuppressed(e);
+                    throw new GroupAborted(rollbackFailure);
+                }
+                afterCommit.subList(actionsBefore, afterCommit.size()).clear();
+                notifyRollback();
+                throw e;
+            }
+        } finally {
+            savepoints--;
+        }
+    }
+
+    private void runAfterCommitActions() {
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                // The data is committed either way; a failing listener must not fail the writes
+                e.printStackTrace();
+            }
+        }
+        afterCommit.clear();
+    }
+
+    private void notifyRollback() {
+        rollbackListeners.forEach(Runnable::run);
+    }
+
+    private static void rollbackQuietly(Connection raw) {
+        try {
+            raw.rollback();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /** A savepoint could not be rolled back, so the state of the whole group is unknown. */
+    private static final class GroupAborted extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        GroupAborted(SQLException cause) {
+            super("Could not roll back a failed write; the write group was abandoned.", cause);
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        final Write<T> write;
+        final boolean alone;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Throwable failure;
+
+        PendingWrite(Write<T> write, boolean alone) {
+            this.write = write;
+            this.alone = alone;
+        }
+
+        void runAlone(PooledConnection conn) throws SQLException {
+            result = write.apply(conn);
+        }
+
+        /** Runs the write; its own failure is recorded, a failure to undo it aborts the group. */
+        void run(DatabaseWriter writer) throws SQLException {
+            try {
+                result = writer.runInSavepoint(write);
+            } catch (GroupAborted e) {
+                throw e;
+            } catch (SQLException | RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        /** Called after the group has committed; only now is the write durable. */
+        void complete() {
+            if (failure != null) future.completeExceptionally(failure);
+            else future.complete(result);
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(failure != null ? failure : e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+// File: src/main/java/com/expense/db/PooledConnection.java
+
+package com.expense.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A long-lived SQLite connection handed out by {@link Database#borrow()}.
+ * Closing it returns it to the pool instead of closing the underlying connection.
+ * Prepared statements are cached per connection, keyed by their SQL text.
+ */
+public class PooledConnection implements AutoCloseable {
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache;
+    private final int generation;
+    private SqliteProfile appliedProfile;
+    private boolean broken = false;
+    private boolean returned = true; // until handed out; closing again must not return it twice
+
+    PooledConnection(Connection connection, int generation) {
+        this.connection = connection;
+        this.generation = generation;
+        // Access-ordered map so the least recently used statement is evicted first
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached prepared statement for the SQL text, preparing it on first use.
+     * Callers must not close the returned statement; they should close any ResultSet they open.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statementCache.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = connection.prepareStatement(sql);
+            statementCache.put(sql, ps);
+        } else {
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    /** Creates an uncached statement for one-off SQL; the caller closes it. */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    /** The raw JDBC connection, for transaction control. Never close it directly. */
+    public Connection raw() {
+        return connection;
+    }
+
+    /** Called by the pool each time the connection is handed out. */
+    void checkOut() {
+        returned = false;
+    }
+
+    void ensureProfile(SqliteProfile profile) throws SQLException {
+        if (appliedProfile == profile) return;
+        try {
+            profile.applyTo(connection);
+            appliedProfile = profile;
+        } catch (SQLException e) {
+            closePhysically();
+            throw e;
+        }
+    }
+
+    /** Marks the connection as unusable so the pool discards it instead of reusing it. */
+    public void markBroken() {
+        this.broken = true;
+    }
+
+    boolean isReusable() {
+        try {
+            return !broken && generation == Database.currentGeneration() && !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** Undoes any state a borrower may have left behind before the connection is reused. */
+    void reset() {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            broken = true;
+        }
+    }
+
+    void closePhysically() {
+        statementCache.values().forEach(PooledConnection::closeQuietly);
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Returns the connection to the pool; closing it again before the next borrow does nothing. */
+    @Override
+    public void close() {
+        if (returned) return;
+        returned = true;
+        Database.release(this);
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,449 @@
+// File: src/main/java/com/expense/db/SchemaMigrator.java
+
+package com.expense.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings an existing expenses.db up to the current schema, one numbered step at a time.
+ * Applied versions are recorded in the schema_version table, so every step runs exactly once
+ * and old databases upgrade in place on startup.
+ * New steps must be appended to {@link #MIGRATIONS} with the next version number; never edit a released step.
+ */
+public class SchemaMigrator {
+
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Index transactions by (timestamp, id) for recent/ordered listings",
+                    sql("CREATE INDEX IF NOT EXISTS idx_transactions_timestamp_id ON transactions(timestamp, id)")),
+            new Migration(2, "Covering index on transactions (category, timestamp, amount) for budget sums",
+                    sql("CREATE INDEX IF NOT EXISTS idx_transactions_category_timestamp ON transactions(category, timestamp, amount)")),
+            new Migration(3, "Index recurring_transactions by next due date",
+                    sql("CREATE INDEX IF NOT EXISTS idx_recurring_next_due ON recurring_transactions(next_due_timestamp)")),
+            new Migration(4, "Add budgets.last_alerted_month for databases created without it",
+                    conn -> {
+                        if (!columnExists(conn, "budgets", "last_alerted_month")) {
+                            try (Statement st = conn.createStatement()) {
+                                st.executeUpdate("ALTER TABLE budgets ADD COLUMN last_alerted_month TEXT");
+                            }
+                        }
+                    }),
+            // A plain column rather than a GENERATED one: SQLite won't treat generated columns as covered by an index.
+            new Migration(5, "Add transactions.year_month (YYYYMM) with a covering index for monthly/yearly totals",
+                    conn -> {
+                        if (!columnExists(conn, "transactions", "year_month")) {
+                            try (Statement st = conn.createStatement()) {
+                                st.executeUpdate("ALTER TABLE transactions ADD COLUMN year_month INTEGER");
+                            }
+                        }
+                        sql("UPDATE transactions SET year_month = " + yearMonthOf("timestamp"),
+                                "CREATE INDEX IF NOT EXISTS idx_transactions_year_month ON transactions(year_month, amount)",
+                                yearMonthInsertTrigger(),
+                                yearMonthUpdateTrigger()
+                        ).apply(conn);
+                    }),
+            new Migration(6, "Add trigger-maintained monthly_category_totals rollup",
+                    sql("CREATE TABLE IF NOT EXISTS monthly_category_totals (" +
+                                    "year_month INTEGER NOT NULL, " +
+                                    "category TEXT NOT NULL, " +
+                                    "total REAL NOT NULL, " +
+                                    "txn_count INTEGER NOT NULL, " +
+                                    "min_amount REAL, " +
+                                    "max_amount REAL, " +
+                                    "PRIMARY KEY (year_month, category)) WITHOUT ROWID",
+                            "DELETE FROM monthly_category_totals",
+                            "INSERT INTO monthly_category_totals(year_month, category, total, txn_count, min_amount, max_amount) " +
+                                    "SELECT year_month, category, SUM(amount), COUNT(*), MIN(amount), MAX(amount) " +
+                                    "FROM transactions GROUP BY year_month, category",
+                            "CREATE TRIGGER IF NOT EXISTS trg_rollup_insert AFTER INSERT ON transactions BEGIN " +
+                                    rollupAdd("NEW", "category") + " END",
+                            "CREATE TRIGGER IF NOT EXISTS trg_rollup_delete AFTER DELETE ON transactions BEGIN " +
+                                    rollupRemove("OLD", "category") + " END",
+                            "CREATE TRIGGER IF NOT EXISTS trg_rollup_update AFTER UPDATE OF timestamp, amount, category ON transactions BEGIN " +
+                                    rollupRemove("OLD", "category") + " " + rollupAdd("NEW", "category") + " END")),
+            new Migration(7, "Move category names into a categories table; other tables reference it by category_id",
+                    SchemaMigrator::normalizeCategories),
+            new Migration(8, "Store all amounts as INTEGER paise instead of REAL rupees",
+                    SchemaMigrator::storeAmountsAsMinorUnits),
+            // External-content FTS5 table: the index lives in transactions_fts, the text stays in transactions.
+            // prefix='2 3' adds prefix indexes so search-as-you-type queries like "gro*" don't scan the term list.
+            new Migration(9, "Add transactions_fts full-text index over descriptions, kept in sync by triggers",
+                    sql("CREATE VIRTUAL TABLE IF NOT EXISTS transactions_fts USING fts5(" +
+                                    "description, content='transactions', content_rowid='id', " +
+                                    "tokenize='unicode61 remove_diacritics 2', prefix='2 3')",
+                            "INSERT INTO transactions_fts(transactions_fts) VALUES('rebuild')",
+                            "CREATE TRIGGER IF NOT EXISTS trg_fts_insert AFTER INSERT ON transactions BEGIN " +
+                                    "INSERT INTO transactions_fts(rowid, description) VALUES (NEW.id, NEW.description); END",
+                            "CREATE TRIGGER IF NOT EXISTS trg_fts_delete AFTER DELETE ON transactions BEGIN " +
+                                    "INSERT INTO transactions_fts(transactions_fts, rowid, description) VALUES ('delete', OLD.id, OLD.description); END",
+                            "CREATE TRIGGER IF NOT EXISTS trg_fts_update AFTER UPDATE OF description ON transactions BEGIN " +
+                                    "INSERT INTO transactions_fts(transactions_fts, rowid, description) VALUES ('delete', OLD.id, OLD.description); " +
+                                    "INSERT INTO transactions_fts(rowid, description) VALUES (NEW.id, NEW.description); END")),
+            // AUTOINCREMENT so a seq is never handed out twice, even after compaction has emptied the log.
+            // Category names are copied in, so an entry still reads right after its category is merged away.
+            new Migration(10, "Add transaction_changes log, appended by triggers on every transaction write",
+                    sql("CREATE TABLE IF NOT EXISTS transaction_changes (" +
+                                    "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                                    "op TEXT NOT NULL, " +
+                                    "transaction_id INTEGER NOT NULL, " +
+                                    "old_timestamp INTEGER, old_amount INTEGER, old_description TEXT, old_category TEXT, " +
+                                    "new_timestamp INTEGER, new_amount INTEGER, new_description TEXT, new_category TEXT)",
+                            "CREATE TABLE IF NOT EXISTS change_consumers (" +
+                                    "name TEXT PRIMARY KEY, " +
+                                    "seq INTEGER NOT NULL) WITHOUT ROWID",
+                            "CREATE TRIGGER IF NOT EXISTS trg_changes_insert AFTER INSERT ON transactions BEGIN " +
+                                    "INSERT INTO transaction_changes(op, transaction_id, new_timestamp, new_amount, new_description, new_category) " +
+                                    "VALUES ('I', NEW.id, " + changeImage("NEW") + "); END",
+                            "CREATE TRIGGER IF NOT EXISTS trg_changes_delete AFTER DELETE ON transactions BEGIN " +
+                                    "INSERT INTO transaction_changes(op, transaction_id, old_timestamp, old_amount, old_description, old_category) " +
+                                    "VALUES ('D', OLD.id, " + changeImage("OLD") + "); END",
+                            // Edits that leave every column as it was are not changes
+                            "CREATE TRIGGER IF NOT EXISTS trg_changes_update AFTER UPDATE OF timestamp, amount, description, category_id ON transactions " +
+                                    "WHEN OLD.timestamp IS NOT NEW.timestamp OR OLD.amount IS NOT NEW.amount " +
+                                    "OR OLD.description IS NOT NEW.description OR OLD.category_id IS NOT NEW.category_id BEGIN " +
+                                    "INSERT INTO transaction_changes(op, transaction_id, " +
+                                    "old_timestamp, old_amount, old_description, old_category, new_timestamp, new_amount, new_description, new_category) " +
+                                    "VALUES ('U', NEW.id, " + changeImage("OLD") + ", " + changeImage("NEW") + "); END")),
+            new Migration(11, "Add change_consumers.state for consumers that save what they derived from the log",
+                    conn -> {
+                        if (!columnExists(conn, "change_consumers", "state")) {
+                            try (Statement st = conn.createStatement()) {
+                                st.executeUpdate("ALTER TABLE change_consumers ADD COLUMN state BLOB");
+                            }
+                        }
+                    }),
+            // Consumers key what they derive by category name, so a rename has to reach them in order with
+            // the transaction changes around it. It touches no transaction, hence transaction_id 0.
+            new Migration(12, "Log category renames in transaction_changes",
+                    sql("CREATE TRIGGER IF NOT EXISTS trg_changes_category_rename AFTER UPDATE OF name ON categories " +
+                            "WHEN OLD.name IS NOT NEW.name BEGIN " +
+                            "INSERT INTO transaction_changes(op, transaction_id, old_category, new_category) " +
+                            "VALUES ('R', 0, OLD.name, NEW.name); END"))
+    );
+
+    /** Applies every migration newer than the database's current version. Returns how many ran. */
+    public static int migrate() throws SQLException {
+        try (PooledConnection pc = Database.borrow()) {
+            Connection conn = pc.raw();
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INTEGER PRIMARY KEY, " +
+                        "description TEXT NOT NULL, " +
+                        "applied_at INTEGER NOT NULL)");
+            }
+
+            int current = currentVersion(conn);
+            List<Migration> pending = new ArrayList<>();
+            for (Migration m : MIGRATIONS) {
+                if (m.version > current) pending.add(m);
+            }
+            if (pending.isEmpty()) return 0;
+
+            for (Migration m : pending) {
+                conn.setAutoCommit(false);
+                try {
+                    m.step.apply(conn);
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+                        ps.setInt(1, m.version);
+                        ps.setString(2, m.description);
+                        ps.setLong(3, Instant.now().getEpochSecond());
+                        ps.executeUpdate();
+                    }
+                    conn.commit();
+                    System.out.println("Applied schema migration " + m.version + ": " + m.description);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Schema migration " + m.version + " failed: " + e.getMessage(), e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            try (Statement st = conn.createStatement()) {
+                // Table rebuilds leave their old pages on the free list; hand them back to the filesystem
+                if (pragmaInt(conn, "freelist_count") > pragmaInt(conn, "page_count") / 4) {
+                    st.execute("VACUUM");
+                }
+                // Refresh the planner's statistics so the new indexes are actually picked up
+                st.execute("PRAGMA optimize");
+            }
+            return pending.size();
+        }
+    }
+
+    public static int currentVersion() throws SQLException {
+        try (PooledConnection pc = Database.borrow()) {
+            return currentVersion(pc.raw());
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int pragmaInt(Connection conn, String pragma) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return true;
+            }
+        }
+        return false;
+    }
+
+    /** SQL for the YYYYMM key of an epoch-day column; strftime expects seconds, hence the scaling. */
+    static String yearMonthOf(String epochDayColumn) {
+        return "CAST(strftime('%Y%m', " + epochDayColumn + " * 86400, 'unixepoch') AS INTEGER)";
+    }
+
+    // Safety net for writers that don't set year_month themselves (e.g. DataGenerator)
+    private static String yearMonthInsertTrigger() {
+        return "CREATE TRIGGER IF NOT EXISTS trg_transactions_year_month_insert AFTER INSERT ON transactions " +
+                "WHEN NEW.year_month IS NOT " + yearMonthOf("NEW.timestamp") + " BEGIN " +
+                "UPDATE transactions SET year_month = " + yearMonthOf("NEW.timestamp") + " WHERE id = NEW.id; END";
+    }
+
+    private static String yearMonthUpdateTrigger() {
+        return "CREATE TRIGGER IF NOT EXISTS trg_transactions_year_month_update AFTER UPDATE OF timestamp, year_month ON transactions " +
+                "WHEN NEW.year_month IS NOT " + yearMonthOf("NEW.timestamp") + " BEGIN " +
+                "UPDATE transactions SET year_month = " + yearMonthOf("NEW.timestamp") + " WHERE id = NEW.id; END";
+    }
+
+    /** The (timestamp, amount, description, category name) of a transactions row, for a transaction_changes entry. */
+    private static String changeImage(String row) {
+        return row + ".timestamp, " + row + ".amount, " + row + ".description, " +
+                "(SELECT name FROM categories WHERE id = " + row + ".category_id)";
+    }
+
+    // Trigger bodies keeping monthly_category_totals in step with one transactions row.
+    // The month is derived from the row's timestamp, so it is right even before year_month has been filled in.
+    // categoryColumn is "category" before migration 7 and "category_id" after it.
+    private static String rollupAdd(String row, String categoryColumn) {
+        String ym = yearMonthOf(row + ".timestamp");
+        return "INSERT INTO monthly_category_totals(year_month, " + categoryColumn + ", total, txn_count, min_amount, max_amount) " +
+                "VALUES (" + ym + ", " + row + "." + categoryColumn + ", " + row + ".amount, 1, " + row + ".amount, " + row + ".amount) " +
+                "ON CONFLICT(year_month, " + categoryColumn + ") DO UPDATE SET " +
+                "total = total + excluded.total, " +
+                "txn_count = txn_count + 1, " +
+                "min_amount = MIN(min_amount, excluded.min_amount), " +
+                "max_amount = MAX(max_amount, excluded.max_amount);";
+    }
+
+    private static String rollupRemove(String row, String categoryColumn) {
+        String ym = yearMonthOf(row + ".timestamp");
+        String sameGroup = "year_month = " + ym + " AND " + categoryColumn + " = " + row + "." + categoryColumn;
+        // min/max can't be decremented, so rescan the group, but only when the removed row was the extreme
+        return "UPDATE monthly_category_totals SET " +
+                "total = total - " + row + ".amount, " +
+                "txn_count = txn_count - 1, " +
+                "min_amount = CASE WHEN " + row + ".amount <= min_amount " +
+                "THEN (SELECT MIN(amount) FROM transactions WHERE " + sameGroup + ") ELSE min_amount END, " +
+                "max_amount = CASE WHEN " + row + ".amount >= max_amount " +
+                "THEN (SELECT MAX(amount) FROM transactions WHERE " + sameGroup + ") ELSE max_amount END " +
+                "WHERE " + sameGroup + "; " +
+                "DELETE FROM monthly_category_totals WHERE " + sameGroup + " AND txn_count <= 0;";
+    }
+
+    /**
+     * Migration 7. SQLite can't change a column's type in place, so transactions, budgets and
+     * recurring_transactions are rebuilt with a category_id column and copied across. Dropping the old
+     * transactions table drops its indexes and triggers too, so those are re-created against category_id,
+     * and the rollup is re-keyed and backfilled. Initial ids follow alphabetical order.
+     */
+    private static void normalizeCategories(Connection conn) throws SQLException {
+        sql("CREATE TABLE IF NOT EXISTS categories (" +
+                        "id INTEGER PRIMARY KEY, " +
+                        "name TEXT NOT NULL UNIQUE)",
+                "INSERT OR IGNORE INTO categories(name) " +
+                        "SELECT category FROM transactions UNION SELECT category FROM budgets " +
+                        "UNION SELECT category FROM recurring_transactions ORDER BY 1",
+
+                // --- transactions ---
+                "CREATE TABLE transactions_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "timestamp INTEGER NOT NULL, " +
+                        "amount REAL NOT NULL, " +
+                        "description TEXT, " +
+                        "category_id INTEGER NOT NULL REFERENCES categories(id), " +
+                        "year_month INTEGER)",
+                "INSERT INTO transactions_new(id, timestamp, amount, description, category_id, year_month) " +
+                        "SELECT t.id, t.timestamp, t.amount, t.description, c.id, t.year_month " +
+                        "FROM transactions t JOIN categories c ON c.name = t.category",
+                "DROP TABLE transactions",
+                "ALTER TABLE transactions_new RENAME TO transactions",
+                "CREATE INDEX idx_transactions_timestamp_id ON transactions(timestamp, id)",
+                "CREATE INDEX idx_transactions_category_timestamp ON transactions(category_id, timestamp, amount)",
+                "CREATE INDEX idx_transactions_year_month ON transactions(year_month, amount)",
+                yearMonthInsertTrigger(),
+                yearMonthUpdateTrigger(),
+
+                // --- monthly_category_totals, re-keyed by category_id ---
+                "DROP TABLE monthly_category_totals",
+                "CREATE TABLE monthly_category_totals (" +
+                        "year_month INTEGER NOT NULL, " +
+                        "category_id INTEGER NOT NULL, " +
+                        "total REAL NOT NULL, " +
+                        "txn_count INTEGER NOT NULL, " +
+                        "min_amount REAL, " +
+                        "max_amount REAL, " +
+                        "PRIMARY KEY (year_month, category_id)) WITHOUT ROWID",
+                "INSERT INTO monthly_category_totals(year_month, category_id, total, txn_count, min_amount, max_amount) " +
+                        "SELECT year_month, category_id, SUM(amount), COUNT(*), MIN(amount), MAX(amount) " +
+                        "FROM transactions GROUP BY year_month, category_id",
+                "CREATE TRIGGER trg_rollup_insert AFTER INSERT ON transactions BEGIN " +
+                        rollupAdd("NEW", "category_id") + " END",
+                "CREATE TRIGGER trg_rollup_delete AFTER DELETE ON transactions BEGIN " +
+                        rollupRemove("OLD", "category_id") + " END",
+                "CREATE TRIGGER trg_rollup_update AFTER UPDATE OF timestamp, amount, category_id ON transactions BEGIN " +
+                        rollupRemove("OLD", "category_id") + " " + rollupAdd("NEW", "category_id") + " END",
+
+                // --- budgets ---
+                "CREATE TABLE budgets_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "category_id INTEGER NOT NULL UNIQUE REFERENCES categories(id), " +
+                        "monthly_limit REAL NOT NULL, " +
+                        "last_alerted_month TEXT)",
+                "INSERT INTO budgets_new(id, category_id, monthly_limit, last_alerted_month) " +
+                        "SELECT b.id, c.id, b.monthly_limit, b.last_alerted_month " +
+                        "FROM budgets b JOIN categories c ON c.name = b.category",
+                "DROP TABLE budgets",
+                "ALTER TABLE budgets_new RENAME TO budgets",
+
+                // --- recurring_transactions ---
+                "CREATE TABLE recurring_transactions_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "description TEXT NOT NULL, " +
+                        "amount REAL NOT NULL, " +
+                        "category_id INTEGER NOT NULL REFERENCES categories(id), " +
+                        "frequency TEXT NOT NULL, " +
+                        "next_due_timestamp INTEGER NOT NULL)",
+                "INSERT INTO recurring_transactions_new(id, description, amount, category_id, frequency, next_due_timestamp) " +
+                        "SELECT r.id, r.description, r.amount, c.id, r.frequency, r.next_due_timestamp " +
+                        "FROM recurring_transactions r JOIN categories c ON c.name = r.category",
+                "DROP TABLE recurring_transactions",
+                "ALTER TABLE recurring_transactions_new RENAME TO recurring_transactions",
+                "CREATE INDEX idx_recurring_next_due ON recurring_transactions(next_due_timestamp)"
+        ).apply(conn);
+    }
+
+    /**
+     * Migration 8. Amounts become whole paise in INTEGER columns, so sums are exact and use integer arithmetic.
+     * Like migration 7 this rebuilds the tables, because a REAL column would turn stored integers back into floats.
+     */
+    private static void storeAmountsAsMinorUnits(Connection conn) throws SQLException {
+        String toMinor = "CAST(ROUND(amount * 100) AS INTEGER)";
+        sql("CREATE TABLE transactions_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "timestamp INTEGER NOT NULL, " +
+                        "amount INTEGER NOT NULL, " +
+                        "description TEXT, " +
+                        "category_id INTEGER NOT NULL REFERENCES categories(id), " +
+                        "year_month INTEGER)",
+                "INSERT INTO transactions_new(id, timestamp, amount, description, category_id, year_month) " +
+                        "SELECT id, timestamp, " + toMinor + ", description, category_id, year_month FROM transactions",
+                "DROP TABLE transactions",
+                "ALTER TABLE transactions_new RENAME TO transactions",
+                "CREATE INDEX idx_transactions_timestamp_id ON transactions(timestamp, id)",
+                "CREATE INDEX idx_transactions_category_timestamp ON transactions(category_id, timestamp, amount)",
+                "CREATE INDEX idx_transactions_year_month ON transactions(year_month, amount)",
+                yearMonthInsertTrigger(),
+                yearMonthUpdateTrigger(),
+
+                "DROP TABLE monthly_category_totals",
+                "CREATE TABLE monthly_category_totals (" +
+                        "year_month INTEGER NOT NULL, " +
+                        "category_id INTEGER NOT NULL, " +
+                        "total INTEGER NOT NULL, " +
+                        "txn_count INTEGER NOT NULL, " +
+                        "min_amount INTEGER, " +
+                        "max_amount INTEGER, " +
+                        "PRIMARY KEY (year_month, category_id)) WITHOUT ROWID",
+                "INSERT INTO monthly_category_totals(year_month, category_id, total, txn_count, min_amount, max_amount) " +
+                        "SELECT year_month, category_id, SUM(amount), COUNT(*), MIN(amount), MAX(amount) " +
+                        "FROM transactions GROUP BY year_month, category_id",
+                "CREATE TRIGGER trg_rollup_insert AFTER INSERT ON transactions BEGIN " +
+                        rollupAdd("NEW", "category_id") + " END",
+                "CREATE TRIGGER trg_rollup_delete AFTER DELETE ON transactions BEGIN " +
+                        rollupRemove("OLD", "category_id") + " END",
+                "CREATE TRIGGER trg_rollup_update AFTER UPDATE OF timestamp, amount, category_id ON transactions BEGIN " +
+                        rollupRemove("OLD", "category_id") + " " + rollupAdd("NEW", "category_id") + " END",
+
+                "CREATE TABLE budgets_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "category_id INTEGER NOT NULL UNIQUE REFERENCES categories(id), " +
+                        "monthly_limit INTEGER NOT NULL, " +
+                        "last_alerted_month TEXT)",
+                "INSERT INTO budgets_new(id, category_id, monthly_limit, last_alerted_month) " +
+                        "SELECT id, category_id, CAST(ROUND(monthly_limit * 100) AS INTEGER), last_alerted_month FROM budgets",
+                "DROP TABLE budgets",
+                "ALTER TABLE budgets_new RENAME TO budgets",
+
+                "CREATE TABLE recurring_transactions_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "description TEXT NOT NULL, " +
+                        "amount INTEGER NOT NULL, " +
+                        "category_id INTEGER NOT NULL REFERENCES categories(id), " +
+                        "frequency TEXT NOT NULL, " +
+                        "next_due_timestamp INTEGER NOT NULL)",
+                "INSERT INTO recurring_transactions_new(id, description, amount, category_id, frequency, next_due_timestamp) " +
+                        "SELECT id, description, " + toMinor + ", category_id, frequency, next_due_timestamp FROM recurring_transactions",
+                "DROP TABLE recurring_transactions",
+                "ALTER TABLE recurring_transactions_new RENAME TO recurring_transactions",
+                "CREATE INDEX idx_recurring_next_due ON recurring_transactions(next_due_timestamp)",
+
+                "CREATE TABLE savings_goals_new (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "goal_name TEXT NOT NULL, " +
+                        "target_amount INTEGER NOT NULL, " +
+                        "current_amount INTEGER NOT NULL DEFAULT 0, " +
+                        "target_date_timestamp INTEGER)",
+                "INSERT INTO savings_goals_new(id, goal_name, target_amount, current_amount, target_date_timestamp) " +
+                        "SELECT id, goal_name, CAST(ROUND(target_amount * 100) AS INTEGER), " +
+                        "CAST(ROUND(current_amount * 100) AS INTEGER), target_date_timestamp FROM savings_goals",
+                "DROP TABLE savings_goals",
+                "ALTER TABLE savings_goals_new RENAME TO savings_goals"
+        ).apply(conn);
+    }
+
+    private static MigrationStep sql(String... statements) {
+        return conn -> {
+            try (Statement st = conn.createStatement()) {
+                for (String s : statements) st.executeUpdate(s);
+            }
+        };
+    }
+}
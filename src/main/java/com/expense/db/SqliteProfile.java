@@ -0,0 +1,67 @@
+// File: src/main/java/com/expense/db/SqliteProfile.java
+
+package com.expense.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Named durability/performance settings applied to every connection {@link Database} hands out.
+ */
+public enum SqliteProfile {
+    // Rollback journal and a full fsync on every commit. Slowest, but survives power loss mid-write.
+    SAFE("DELETE", "FULL", "DEFAULT", 0L, -2_000),
+    // WAL lets readers run alongside the writer; NORMAL only fsyncs at checkpoints.
+    BALANCED("WAL", "NORMAL", "MEMORY", 256L * 1024 * 1024, -16_000),
+    // For imports: no fsync at all and a large page cache. A crash can lose the rows being imported.
+    BULK_LOAD("WAL", "OFF", "MEMORY", 256L * 1024 * 1024, -64_000);
+
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final String journalMode;
+    private final String synchronous;
+    private final String tempStore;
+    private final long mmapSizeBytes;
+    private final int cacheSize; // negative values are KiB, as in PRAGMA cache_size
+
+    SqliteProfile(String journalMode, String synchronous, String tempStore, long mmapSizeBytes, int cacheSize) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.tempStore = tempStore;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.cacheSize = cacheSize;
+    }
+
+    public String getJournalMode() { return journalMode; }
+    public String getSynchronous() { return synchronous; }
+    public String getTempStore() { return tempStore; }
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+    public int getCacheSize() { return cacheSize; }
+
+    void applyTo(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            // journal_mode is a property of the database file; SQLite keeps the old mode if it can't switch yet.
+            st.execute("PRAGMA journal_mode = " + journalMode);
+            st.execute("PRAGMA synchronous = " + synchronous);
+            st.execute("PRAGMA temp_store = " + tempStore);
+            st.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            st.execute("PRAGMA cache_size = " + cacheSize);
+        }
+    }
+
+    /**
+     * Parses a profile name such as "balanced" or "bulk-load". A missing or unknown name gives the
+     * fallback, without complaint: the profile only tunes speed against durability, so a mistyped
+     * setting should never stop the app from opening its database.
+     */
+    public static SqliteProfile fromName(String name, SqliteProfile fallback) {
+        if (name == null || name.isBlank()) return fallback;
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -8,15 +8,31 @@ import weka.core.Instance;
 import weka.core.Instances;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ExpensePredictor {
     private IBk model;
 
+    /**
+     * Anything that can push training rows one at a time, e.g. {@code service::forEachTransactionData}.
+     */
+    @FunctionalInterface
+    public interface TrainingSource {
+        void forEach(Consumer<TransactionData> action) throws Exception;
+    }
+
     public void train(List<TransactionData> transactionData) throws Exception {
         if (transactionData == null || transactionData.isEmpty()) {
             throw new IllegalArgumentException("Training data cannot be empty.");
         }
+        train(transactionData::forEach);
+    }
 
+    /**
+     * Trains directly from a streamed source so no intermediate list of rows is built.
+     * @return the number of rows the model was trained on.
+     */
+    public int train(TrainingSource source) throws Exception {
         // Define the new set of attributes
         ArrayList<Attribute> attributes = new ArrayList<>();
         attributes.add(new Attribute("dayOfWeek"));
@@ -25,11 +41,11 @@ public class ExpensePredictor {
         attributes.add(new Attribute("amount"));
         attributes.add(new Attribute("categoryCode"));
 
-        Instances data = new Instances("TransactionData", attributes, transactionData.size());
+        Instances data = new Instances("TransactionData", attributes, 0);
         data.setClassIndex(3); // 'amount' is the 4th attribute (index 3)
 
         // Populate the dataset with the new features
-        for (TransactionData tx : transactionData) {
+        source.forEach(tx -> {
             Instance inst = new DenseInstance(5);
             inst.setValue(attributes.get(0), tx.dayOfWeek);
             inst.setValue(attributes.get(1), tx.dayOfMonth);
@@ -37,10 +53,14 @@ public class ExpensePredictor {
             inst.setValue(attributes.get(3), tx.amount);
             inst.setValue(attributes.get(4), tx.categoryCode);
             data.add(inst);
+        });
+        if (data.isEmpty()) {
+            throw new IllegalArgumentException("Training data cannot be empty.");
         }
 
         model = new IBk();
         model.buildClassifier(data);
+        return data.size();
     }
 
     /**
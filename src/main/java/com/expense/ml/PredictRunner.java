@@ -1,9 +1,8 @@
 package com.expense.ml;
 
-import com.expense.model.TransactionData;
+import com.expense.model.TransactionFilter;
 import com.expense.service.ExpenseService;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
 
 public class PredictRunner {
@@ -11,17 +10,16 @@ public class PredictRunner {
         ExpenseService service = new ExpenseService();
         service.init();
 
-        // 1. Get training data from the database
-        List<TransactionData> trainingData = service.getTransactionDataForRegression();
-        if (trainingData.isEmpty()) {
+        // 1. Make sure there is training data in the database
+        if (service.countTransactions(TransactionFilter.none()) == 0) {
             System.out.println("No transaction data in the database to train the model.");
             return;
         }
 
-        // 2. Train the model
+        // 2. Train the model, streaming rows straight from the database
         ExpensePredictor predictor = new ExpensePredictor();
         System.out.println("Training regression model from database...");
-        predictor.train(trainingData);
+        predictor.train(service::forEachTransactionData);
         System.out.println("Training finished.");
 
         // 3. Load category map from the database
@@ -39,6 +39,7 @@ public class Budget {
 
     public double getMonthlyLimit() { return monthlyLimit; }
     public void setMonthlyLimit(double monthlyLimit) { this.monthlyLimit = monthlyLimit; }
+    public long getMonthlyLimitMinor() { return Money.toMinor(monthlyLimit); }
 
     // The missing getter and setter
     public String getLastAlertedMonth() { return lastAlertedMonth; }
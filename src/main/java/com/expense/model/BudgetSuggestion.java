@@ -0,0 +1,48 @@
+package com.expense.model;
+
+/** Suggested monthly limits for a category, one per level, worked out from its recent monthly spending. */
+public class BudgetSuggestion {
+
+    /** How many of the past months a limit would have covered. */
+    public enum Level {
+        TYPICAL(50, "A typical month (P50)"),
+        MOST_MONTHS(80, "Most months (P80)"),
+        NEARLY_EVERY_MONTH(95, "Nearly every month (P95)");
+
+        public final int percentile;
+        private final String label;
+
+        Level(int percentile, String label) {
+            this.percentile = percentile;
+            this.label = label;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    private final String category;
+    private final long[] limitsMinor; // paise, by Level ordinal
+    private final int months;
+    private final double trend;
+
+    public BudgetSuggestion(String category, long[] limitsMinor, int months, double trend) {
+        this.category = category;
+        this.limitsMinor = limitsMinor.clone();
+        this.months = months;
+        this.trend = trend;
+    }
+
+    public String getCategory() { return category; }
+    public long getLimitMinor(Level level) { return limitsMinor[level.ordinal()]; }
+    public double getLimit(Level level) { return Money.toMajor(getLimitMinor(level)); }
+    /** Number of past months the limits are based on. */
+    public int getMonths() { return months; }
+    /** Factor the limits were scaled by for the spending trend; 1 when there is none. */
+    public double getTrend() { return trend; }
+
+    /** A new, unsaved budget with the limit for the level. */
+    public Budget toBudget(Level level) {
+        return new Budget(category, getLimit(level));
+    }
+}
@@ -0,0 +1,33 @@
+// File: src/main/java/com/expense/model/BulkChange.java
+
+package com.expense.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a bulk edit did: how many transactions it changed, and the months and categories they were in
+ * before and are in after, so figures cached for any other month or category can be kept.
+ */
+public class BulkChange {
+    private int count = 0;
+    private final Map<YearMonth, Set<String>> categoriesByMonth = new HashMap<>();
+
+    /** Records one changed transaction; {@code categoryAfter} is null if it was deleted. */
+    public void add(long epochDay, String categoryBefore, String categoryAfter) {
+        Set<String> categories = categoriesByMonth.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(epochDay)), m -> new HashSet<>());
+        categories.add(categoryBefore);
+        if (categoryAfter != null) categories.add(categoryAfter);
+        count++;
+    }
+
+    public int getCount() { return count; }
+
+    /** Each month a changed transaction falls in, with the categories it left or joined there. */
+    public Map<YearMonth, Set<String>> getCategoriesByMonth() { return Collections.unmodifiableMap(categoriesByMonth); }
+}
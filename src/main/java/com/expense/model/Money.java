@@ -0,0 +1,43 @@
+// File: src/main/java/com/expense/model/Money.java
+
+package com.expense.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between rupee amounts and the whole paise (minor units) they are stored and summed in.
+ * The database and all aggregation use long paise; doubles only appear at the UI edge.
+ */
+public final class Money {
+    public static final int MINOR_PER_MAJOR = 100;
+
+    private Money() {}
+
+    /** Rounds a rupee amount to the nearest paisa. */
+    public static long toMinor(double major) {
+        return Math.round(major * MINOR_PER_MAJOR);
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_PER_MAJOR;
+    }
+
+    /** Parses user input such as "12", "12.5" or "12.50" exactly, without going through a double. */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /** Plain decimal form with two places, e.g. 1234.50, as written to CSV exports. */
+    public static String toPlainString(long minor) {
+        return BigDecimal.valueOf(minor, 2).toPlainString();
+    }
+
+    public static String format(long minor) {
+        return "₹" + toPlainString(minor);
+    }
+}
@@ -43,6 +43,7 @@ public class RecurringTransaction {
 
     public double getAmount() { return amount; }
     public void setAmount(double amount) { this.amount = amount; }
+    public long getAmountMinor() { return Money.toMinor(amount); }
 
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
@@ -37,9 +37,11 @@ public class SavingsGoal {
 
     public double getTargetAmount() { return targetAmount.get(); }
     public DoubleProperty targetAmountProperty() { return targetAmount; }
+    public long getTargetAmountMinor() { return Money.toMinor(getTargetAmount()); }
 
     public double getCurrentAmount() { return currentAmount.get(); }
     public DoubleProperty currentAmountProperty() { return currentAmount; }
+    public long getCurrentAmountMinor() { return Money.toMinor(getCurrentAmount()); }
 
     public LocalDate getTargetDate() { return targetDate.get(); }
     public ObjectProperty<LocalDate> targetDateProperty() { return targetDate; }
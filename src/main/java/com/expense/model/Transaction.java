@@ -38,6 +38,7 @@ public class Transaction {
     public double getAmount() { return amount.get(); }
     public void setAmount(double v) { amount.set(v); }
     public DoubleProperty amountProperty() { return amount; }
+    public long getAmountMinor() { return Money.toMinor(getAmount()); }
 
     public String getDescription() { return description.get(); }
     public void setDescription(String v) { description.set(v); }
@@ -0,0 +1,36 @@
+package com.expense.model;
+
+/**
+ * One entry of the transaction change log: what a transaction looked like before and after a write.
+ * Entries are numbered by a sequence that only grows, in the order the writes were committed.
+ */
+public class TransactionChange {
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE,
+        // Moved out of the live table into the archive; it still counts in totals, so it isn't a delete
+        ARCHIVE,
+        // A category was renamed; no transaction changed, and before and after carry only the old and new name
+        RENAME
+    }
+
+    public final long seq;
+    public final Type type;
+    public final int transactionId;
+    public final TransactionRecord before; // null for INSERT
+    public final TransactionRecord after;  // null for DELETE and ARCHIVE
+
+    public TransactionChange(long seq, Type type, int transactionId, TransactionRecord before, TransactionRecord after) {
+        this.seq = seq;
+        this.type = type;
+        this.transactionId = transactionId;
+        this.before = before;
+        this.after = after;
+    }
+
+    /** The entry for a category rename, so consumers apply it in order with the transaction changes around it. */
+    public static TransactionChange renamed(long seq, String oldName, String newName) {
+        return new TransactionChange(seq, Type.RENAME, 0, new TransactionRecord(0, 0, 0, null, oldName), new TransactionRecord(0, 0, 0, null, newName));
+    }
+}
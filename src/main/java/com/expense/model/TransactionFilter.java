@@ -0,0 +1,38 @@
+// File: src/main/java/com/expense/model/TransactionFilter.java
+
+package com.expense.model;
+
+import java.time.LocalDate;
+
+/**
+ * Optional restrictions for paged transaction queries. Any field left null is not filtered on.
+ */
+public class TransactionFilter {
+    private static final TransactionFilter NONE = new TransactionFilter(null, null, null);
+
+    private final String category;
+    private final LocalDate fromDate; // inclusive
+    private final LocalDate toDate;   // inclusive
+
+    public TransactionFilter(String category, LocalDate fromDate, LocalDate toDate) {
+        this.category = category;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public static TransactionFilter none() {
+        return NONE;
+    }
+
+    public static TransactionFilter forCategory(String category) {
+        return new TransactionFilter(category, null, null);
+    }
+
+    public String getCategory() { return category; }
+    public LocalDate getFromDate() { return fromDate; }
+    public LocalDate getToDate() { return toDate; }
+
+    public boolean hasDateRange() {
+        return fromDate != null || toDate != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.expense.model;
+
+import java.time.LocalDate;
+
+/**
+ * A plain, immutable transaction row for streaming consumers (export, persona, training).
+ * Much lighter than {@link Transaction}, which carries JavaFX properties for the table.
+ */
+public class TransactionRecord {
+    public final int id;
+    public final long epochDay;
+    public final long amountMinor; // paise, see Money
+    public final String description;
+    public final String category;
+
+    public TransactionRecord(int id, long epochDay, long amountMinor, String description, String category) {
+        this.id = id;
+        this.epochDay = epochDay;
+        this.amountMinor = amountMinor;
+        this.description = description;
+        this.category = category;
+    }
+
+    public LocalDate getDate() {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    public double getAmount() {
+        return Money.toMajor(amountMinor);
+    }
+}
@@ -0,0 +1,97 @@
+// File: src/main/java/com/expense/repo/CategoryDictionary.java
+
+package com.expense.repo;
+
+import com.expense.db.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process copy of the categories table (id <-> name). There are only a handful of categories
+ * and they rarely change, so the whole table is loaded on first use and kept in step by the repository.
+ * Lookups run on the caller's connection so a cursor that is already open never needs a second one.
+ */
+final class CategoryDictionary {
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final Map<Integer, String> namesById = new HashMap<>();
+    private boolean loaded = false;
+
+    /** Name for an id, reloading once if another writer added it behind our back. */
+    synchronized String nameOf(PooledConnection conn, int id) throws SQLException {
+        ensureLoaded(conn);
+        String name = namesById.get(id);
+        if (name == null) {
+            reload(conn);
+            name = namesById.get(id);
+        }
+        return name;
+    }
+
+    /** Id for an existing category, or null when no category has that name. */
+    synchronized Integer idOf(PooledConnection conn, String name) throws SQLException {
+        ensureLoaded(conn);
+        Integer id = idsByName.get(name);
+        if (id == null) {
+            reload(conn);
+            id = idsByName.get(name);
+        }
+        return id;
+    }
+
+    /**
+     * Id for the category, creating it when it is new. Only call it from a write on the
+     * {@code DatabaseWriter}: if the write is rolled back, the writer's rollback listener
+     * invalidates this cache so the id that the table no longer has is not handed out again.
+     */
+    synchronized int idFor(PooledConnection conn, String name) throws SQLException {
+        Integer id = idOf(conn, name);
+        if (id != null) return id;
+        PreparedStatement ps = conn.prepare("INSERT INTO categories(name) VALUES(?) ON CONFLICT(name) DO NOTHING");
+        ps.setString(1, name);
+        ps.executeUpdate();
+        reload(conn);
+        return idsByName.get(name);
+    }
+
+    synchronized List<String> names(PooledConnection conn) throws SQLException {
+        ensureLoaded(conn);
+        List<String> names = new ArrayList<>(idsByName.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    synchronized void renamed(int id, String oldName, String newName) {
+        idsByName.remove(oldName);
+        idsByName.put(newName, id);
+        namesById.put(id, newName);
+    }
+
+    /** Drops the cached copy, e.g. after the underlying database has been replaced. */
+    synchronized void invalidate() {
+        loaded = false;
+        idsByName.clear();
+        namesById.clear();
+    }
+
+    private void ensureLoaded(PooledConnection conn) throws SQLException {
+        if (!loaded) reload(conn);
+    }
+
+    private void reload(PooledConnection conn) throws SQLException {
+        idsByName.clear();
+        namesById.clear();
+        try (ResultSet rs = conn.prepare("SELECT id, name FROM categories").executeQuery()) {
+            while (rs.next()) {
+                idsByName.put(rs.getString("name"), rs.getInt("id"));
+                namesById.put(rs.getInt("id"), rs.getString("name"));
+            }
+        }
+        loaded = true;
+    }
+}
@@ -0,0 +1,17 @@
+// File: src/main/java/com/expense/repo/ChangeLogGapException.java
+
+package com.expense.repo;
+
+import java.sql.SQLException;
+
+/**
+ * The changes a consumer asked for are no longer all in the log: they were compacted away, or the
+ * database was restored to an earlier state. The consumer has to rebuild from a fresh snapshot.
+ */
+public class ChangeLogGapException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    public ChangeLogGapException(long afterSeq, long oldestSeq, long latestSeq) {
+        super("Changes after seq " + afterSeq + " are not in the log (it holds " + oldestSeq + ".." + latestSeq + "); rebuild from a snapshot.");
+    }
+}
@@ -0,0 +1,903 @@
+// File: src/main/java/com/expense/repo/InMemoryTransactionStore.java
+
+package com.expense.repo;
+
+import com.expense.model.Budget;
+import com.expense.model.BulkChange;
+import com.expense.model.Money;
+import com.expense.model.RecurringTransaction;
+import com.expense.model.SavingsGoal;
+import com.expense.model.Transaction;
+import com.expense.model.TransactionChange;
+import com.expense.model.TransactionData;
+import com.expense.model.TransactionFilter;
+import com.expense.model.TransactionRecord;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * A {@link TransactionStore} kept entirely in Java collections, for analytics batch jobs, benchmarks
+ * and tests that need a fast store which never touches disk. Nothing survives the process.
+ * Rows are held as they are in SQLite (paise, epoch days, category ids), sorted by (day, id), so
+ * results match the SQLite store's. Search matches word prefixes like FTS5 but can't rank by
+ * relevance, so matches come back newest first.
+ */
+public class InMemoryTransactionStore implements TransactionStore {
+    private static final Comparator<Row> BY_DAY_AND_ID = Comparator.<Row>comparingLong(r -> r.day).thenComparingInt(r -> r.id);
+
+    private static final class Row {
+        final int id;
+        final long day;
+        final long amount;
+        final String description;
+        final int categoryId;
+
+        Row(int id, long day, long amount, String description, int categoryId) {
+            this.id = id;
+            this.day = day;
+            this.amount = amount;
+            this.description = description;
+            this.categoryId = categoryId;
+        }
+    }
+
+    private static final class BudgetRow {
+        final int id;
+        final int categoryId;
+        long limit;
+        String lastAlertedMonth;
+
+        BudgetRow(int id, int categoryId, long limit) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.limit = limit;
+        }
+    }
+
+    private static final class RecurringRow {
+        final int id;
+        final String description;
+        final long amount;
+        final int categoryId;
+        final RecurringTransaction.Frequency frequency;
+        long nextDueDay;
+
+        RecurringRow(int id, String description, long amount, int categoryId, RecurringTransaction.Frequency frequency, long nextDueDay) {
+            this.id = id;
+            this.description = description;
+            this.amount = amount;
+            this.categoryId = categoryId;
+            this.frequency = frequency;
+            this.nextDueDay = nextDueDay;
+        }
+    }
+
+    private static final class GoalRow {
+        final int id;
+        final String name;
+        final long target;
+        long current;
+        final LocalDate targetDate;
+
+        GoalRow(int id, String name, long target, long current, LocalDate targetDate) {
+            this.id = id;
+            this.name = name;
+            this.target = target;
+            this.current = current;
+            this.targetDate = targetDate;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeSet<Row> rows = new TreeSet<>(BY_DAY_AND_ID);
+    private final Map<Integer, Row> rowsById = new HashMap<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final Map<Integer, String> categoryNames = new HashMap<>();
+    private final Map<Integer, BudgetRow> budgets = new LinkedHashMap<>();
+    private final Map<Integer, RecurringRow> recurring = new LinkedHashMap<>();
+    private final Map<Integer, GoalRow> goals = new LinkedHashMap<>();
+    // Ids start at 1 and are never reused, as with SQLite's AUTOINCREMENT
+    private int nextTransactionId = 1;
+    private int nextCategoryId = 1;
+    private int nextBudgetId = 1;
+    private int nextRecurringId = 1;
+    private int nextGoalId = 1;
+    // The change log the SQLite triggers keep, by seq; entries hold category names as they were at the time
+    private final NavigableMap<Long, TransactionChange> changes = new TreeMap<>();
+    private final Map<String, Long> changeConsumers = new HashMap<>();
+    private final Map<String, byte[]> changeConsumerStates = new HashMap<>();
+    private long lastChangeSeq = 0;
+
+    @Override
+    public void init() {
+        // Nothing to create; the collections are the schema
+    }
+
+    // --- TRANSACTIONS ---
+
+    @Override
+    public void insert(Transaction t) {
+        insertAll(List.of(t));
+    }
+
+    @Override
+    public void insertAll(List<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction t : transactions) {
+                Row row = new Row(nextTransactionId++, t.getDate().toEpochDay(), t.getAmountMinor(), t.getDescription(), categoryIdFor(t.getCategory()));
+                rows.add(row);
+                rowsById.put(row.id, row);
+                logChange(TransactionChange.Type.INSERT, null, row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction updateTransaction(Transaction t) {
+        lock.writeLock().lock();
+        try {
+            Row old = rowsById.get(t.getId());
+            if (old == null) return null;
+            replace(old, new Row(t.getId(), t.getDate().toEpochDay(), t.getAmountMinor(), t.getDescription(), categoryIdFor(t.getCategory())));
+            return toTransaction(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction deleteTransaction(int id) {
+        lock.writeLock().lock();
+        try {
+            Row old = rowsById.get(id);
+            if (old == null) return null;
+            remove(old);
+            return toTransaction(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Hands over a copy of the rows, so the consumer may call back into the store. */
+    @Override
+    public void forEachTransaction(Consumer<TransactionRecord> action) {
+        List<TransactionRecord> records = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : rows.descendingSet()) {
+                records.add(toRecord(r));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        records.forEach(action);
+    }
+
+    @Override
+    public void forEachTransactionData(Consumer<TransactionData> action) {
+        List<TransactionData> data = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : rows) {
+                LocalDate date = LocalDate.ofEpochDay(r.day);
+                data.add(new TransactionData(date.getDayOfWeek().getValue(), date.getDayOfMonth(), date.getMonthValue(), Money.toMajor(r.amount), r.categoryId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        data.forEach(action);
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(int limit) {
+        return getPage(null, null, limit, TransactionFilter.none());
+    }
+
+    @Override
+    public List<Transaction> getPage(Long afterTimestamp, Integer afterId, int limit, TransactionFilter filter) {
+        List<Transaction> list = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Iterator<Row> newestFirst = afterTimestamp != null && afterId != null
+                    ? rows.headSet(new Row(afterId, afterTimestamp, 0, null, 0), false).descendingIterator()
+                    : rows.descendingIterator();
+            while (newestFirst.hasNext() && list.size() < limit) {
+                Row r = newestFirst.next();
+                if (matches(r, filter)) list.add(toTransaction(r));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return list;
+    }
+
+    @Override
+    public int countTransactions(TransactionFilter filter) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Row r : rows) {
+                if (matches(r, filter)) count++;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> search(String query, TransactionFilter filter, int limit) {
+        List<Transaction> list = new ArrayList<>();
+        if (query == null || query.isBlank()) return list;
+        String[] terms = searchTerms(query);
+        lock.readLock().lock();
+        try {
+            for (Iterator<Row> it = rows.descendingIterator(); it.hasNext() && list.size() < limit; ) {
+                Row r = it.next();
+                if (matches(r, filter) && hasWordPrefixes(r.description, terms)) list.add(toTransaction(r));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return list;
+    }
+
+    @Override
+    public List<Integer> getTransactionYears() {
+        TreeSet<Integer> years = new TreeSet<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : rows) years.add(LocalDate.ofEpochDay(r.day).getYear());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(years);
+    }
+
+    // --- BULK EDITS ---
+
+    @Override
+    public BulkChange recategorize(List<Integer> ids, String newCategory) {
+        lock.writeLock().lock();
+        try {
+            int categoryId = categoryIdFor(newCategory);
+            BulkChange changed = new BulkChange();
+            for (int id : ids) {
+                Row r = rowsById.get(id);
+                if (r != null && r.categoryId != categoryId) {
+                    replace(r, new Row(r.id, r.day, r.amount, r.description, categoryId));
+                    changed.add(r.day, categoryNames.get(r.categoryId), newCategory);
+                }
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BulkChange recategorizeMatching(String query, TransactionFilter filter, String newCategory) {
+        if (query == null || query.isBlank()) return new BulkChange();
+        String[] terms = searchTerms(query);
+        lock.writeLock().lock();
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (Row r : rows) {
+                if (matches(r, filter) && hasWordPrefixes(r.description, terms)) ids.add(r.id);
+            }
+            return recategorize(ids, newCategory);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BulkChange moveCategory(String fromCategory, String toCategory) throws SQLException {
+        if (fromCategory.equals(toCategory)) return new BulkChange();
+        lock.writeLock().lock();
+        try {
+            Integer fromId = categoryIds.get(fromCategory);
+            if (fromId == null) throw new SQLException("Unknown category: " + fromCategory);
+            int toId = categoryIdFor(toCategory);
+            List<Integer> ids = new ArrayList<>();
+            for (Row r : rows) {
+                if (r.categoryId == fromId) ids.add(r.id);
+            }
+            BulkChange moved = recategorize(ids, toCategory);
+            for (Map.Entry<Integer, RecurringRow> e : recurring.entrySet()) {
+                RecurringRow r = e.getValue();
+                if (r.categoryId == fromId) e.setValue(new RecurringRow(r.id, r.description, r.amount, toId, r.frequency, r.nextDueDay));
+            }
+            boolean targetHasBudget = budgets.values().stream().anyMatch(b -> b.categoryId == toId);
+            for (Map.Entry<Integer, BudgetRow> e : budgets.entrySet()) {
+                BudgetRow b = e.getValue();
+                if (b.categoryId != fromId || targetHasBudget) continue;
+                BudgetRow reassigned = new BudgetRow(b.id, toId, b.limit);
+                reassigned.lastAlertedMonth = b.lastAlertedMonth;
+                e.setValue(reassigned);
+            }
+            budgets.values().removeIf(b -> b.categoryId == fromId);
+            categoryIds.remove(fromCategory);
+            categoryNames.remove(fromId);
+            return moved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BulkChange deleteTransactions(List<Integer> ids) {
+        lock.writeLock().lock();
+        try {
+            BulkChange deleted = new BulkChange();
+            for (int id : ids) {
+                Row old = rowsById.get(id);
+                if (old != null) {
+                    remove(old);
+                    deleted.add(old.day, categoryNames.get(old.categoryId), null);
+                }
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BulkChange deleteMatching(TransactionFilter filter) throws SQLException {
+        if (filter.getCategory() == null && !filter.hasDateRange()) {
+            throw new SQLException("Refusing to delete every transaction; give a category or a date range.");
+        }
+        lock.writeLock().lock();
+        try {
+            List<Row> matching = new ArrayList<>();
+            for (Row r : rows) {
+                if (matches(r, filter)) matching.add(r);
+            }
+            BulkChange deleted = new BulkChange();
+            for (Row r : matching) {
+                remove(r);
+                deleted.add(r.day, categoryNames.get(r.categoryId), null);
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- CHANGE LOG ---
+
+    @Override
+    public long getLatestChangeSeq() {
+        lock.readLock().lock();
+        try {
+            return lastChangeSeq;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionChange> getChangesSince(long afterSeq, int limit) throws SQLException {
+        lock.readLock().lock();
+        try {
+            long oldest = changes.isEmpty() ? lastChangeSeq + 1 : changes.firstKey();
+            if (afterSeq + 1 < oldest || afterSeq > lastChangeSeq) throw new ChangeLogGapException(afterSeq, oldest, lastChangeSeq);
+            List<TransactionChange> list = new ArrayList<>();
+            for (TransactionChange c : changes.tailMap(afterSeq, false).values()) {
+                if (list.size() == limit) break;
+                list.add(c);
+            }
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long forEachTransactionAsOfChange(Consumer<TransactionRecord> action) {
+        List<TransactionRecord> records = new ArrayList<>();
+        long seq;
+        lock.readLock().lock();
+        try {
+            seq = lastChangeSeq;
+            for (Row r : rows.descendingSet()) records.add(toRecord(r));
+        } finally {
+            lock.readLock().unlock();
+        }
+        records.forEach(action);
+        return seq;
+    }
+
+    @Override
+    public void acknowledgeChanges(String consumer, long seq) {
+        lock.writeLock().lock();
+        try {
+            changeConsumers.merge(consumer, seq, Math::max);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public byte[] getChangeConsumerState(String consumer) {
+        lock.readLock().lock();
+        try {
+            byte[] state = changeConsumerStates.get(consumer);
+            return state == null ? null : state.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveChangeConsumerState(String consumer, long seq, byte[] state) {
+        lock.writeLock().lock();
+        try {
+            changeConsumers.merge(consumer, seq, Math::max);
+            changeConsumerStates.put(consumer, state.clone());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int compactChanges() {
+        lock.writeLock().lock();
+        try {
+            long upTo = changeConsumers.isEmpty() ? lastChangeSeq : changeConsumers.values().stream().mapToLong(Long::longValue).min().getAsLong();
+            Map<Long, TransactionChange> consumed = changes.headMap(upTo, true);
+            int count = consumed.size();
+            consumed.clear();
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int archiveBefore(LocalDate cutoff) throws SQLException {
+        throw new SQLException("Archiving needs a SQLite store; the in-memory store keeps all transactions live.");
+    }
+
+    // --- AGGREGATES ---
+
+    @Override
+    public Map<String, Long> getMonthlyTotalsForYear(int year) {
+        Map<String, Long> map = new HashMap<>();
+        for (int m = 1; m <= 12; m++) {
+            long total = getTotalForMonth(YearMonth.of(year, m));
+            if (total != 0) map.put(String.format("%d-%02d", year, m), total);
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getCategoryTotalsForMonth(YearMonth yearMonth) {
+        Map<String, Long> map = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : month(yearMonth)) map.merge(categoryNames.get(r.categoryId), r.amount, Long::sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+        map.values().removeIf(total -> total == 0);
+        return map;
+    }
+
+    @Override
+    public long getTotalForMonth(YearMonth yearMonth) {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Row r : month(yearMonth)) total += r.amount;
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getSpentAmountForCategory(String category, YearMonth yearMonth) {
+        lock.readLock().lock();
+        try {
+            Integer categoryId = categoryIds.get(category);
+            if (categoryId == null) return 0;
+            long total = 0;
+            for (Row r : month(yearMonth)) {
+                if (r.categoryId == categoryId) total += r.amount;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Double> getCategoryAverageSpending() {
+        Map<Integer, long[]> sumsAndCounts = new HashMap<>();
+        Map<String, Double> averages = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : rows) {
+                long[] sumAndCount = sumsAndCounts.computeIfAbsent(r.categoryId, k -> new long[2]);
+                sumAndCount[0] += r.amount;
+                sumAndCount[1]++;
+            }
+            sumsAndCounts.forEach((id, s) -> averages.put(categoryNames.get(id), Money.toMajor(s[0]) / s[1]));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return averages;
+    }
+
+    @Override
+    public Map<String, Double> getAverageMonthlySpendingPerCategory() {
+        Map<Integer, Long> totals = new HashMap<>();
+        Map<Integer, Set<YearMonth>> months = new HashMap<>();
+        Map<String, Double> averages = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            // Averages over the months that had spending, from six months ago up to the current month
+            long from = YearMonth.now().minusMonths(6).atDay(1).toEpochDay();
+            for (Row r : rows.tailSet(new Row(Integer.MIN_VALUE, from, 0, null, 0))) {
+                totals.merge(r.categoryId, r.amount, Long::sum);
+                months.computeIfAbsent(r.categoryId, k -> new HashSet<>()).add(YearMonth.from(LocalDate.ofEpochDay(r.day)));
+            }
+            totals.forEach((id, total) -> averages.put(categoryNames.get(id), Money.toMajor(total) / months.get(id).size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return averages;
+    }
+
+    @Override
+    public Map<String, Integer> getCategoryCodeMap() {
+        Map<String, Integer> map = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Row r : rows) map.putIfAbsent(categoryNames.get(r.categoryId), r.categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return map;
+    }
+
+    // --- CATEGORIES ---
+
+    @Override
+    public List<String> getAllCategories() {
+        lock.readLock().lock();
+        try {
+            List<String> names = new ArrayList<>(categoryIds.keySet());
+            names.sort(null);
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void renameCategory(String oldName, String newName) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            Integer id = categoryIds.get(oldName);
+            if (id == null) throw new SQLException("Unknown category: " + oldName);
+            if (categoryIds.containsKey(newName)) throw new SQLException("Category already exists: " + newName);
+            categoryIds.remove(oldName);
+            categoryIds.put(newName, id);
+            categoryNames.put(id, newName);
+            long seq = ++lastChangeSeq;
+            changes.put(seq, TransactionChange.renamed(seq, oldName, newName));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- BUDGETS ---
+
+    @Override
+    public List<Budget> getAllBudgets() {
+        List<Budget> list = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (BudgetRow b : budgets.values()) list.add(toBudget(b));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return list;
+    }
+
+    @Override
+    public Budget getBudgetByCategory(String category) {
+        lock.readLock().lock();
+        try {
+            Integer categoryId = categoryIds.get(category);
+            if (categoryId == null) return null;
+            for (BudgetRow b : budgets.values()) {
+                if (b.categoryId == categoryId) return toBudget(b);
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateBudgetAlertMonth(int budgetId, String yearMonth) {
+        lock.writeLock().lock();
+        try {
+            BudgetRow b = budgets.get(budgetId);
+            if (b != null) b.lastAlertedMonth = yearMonth;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addBudget(Budget b) {
+        lock.writeLock().lock();
+        try {
+            int categoryId = categoryIdFor(b.getCategory());
+            for (BudgetRow existing : budgets.values()) {
+                if (existing.categoryId == categoryId) return;
+            }
+            BudgetRow row = new BudgetRow(nextBudgetId++, categoryId, b.getMonthlyLimitMinor());
+            budgets.put(row.id, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateBudget(Budget b) {
+        lock.writeLock().lock();
+        try {
+            BudgetRow row = budgets.get(b.getId());
+            if (row != null) row.limit = b.getMonthlyLimitMinor();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteBudget(int id) {
+        lock.writeLock().lock();
+        try {
+            budgets.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- RECURRING TRANSACTIONS ---
+
+    @Override
+    public List<RecurringTransaction> getAllRecurringTransactions() {
+        List<RecurringTransaction> list = recurringDueBy(Long.MAX_VALUE);
+        list.sort(Comparator.comparing(RecurringTransaction::getNextDueDate));
+        return list;
+    }
+
+    @Override
+    public void addRecurringTransaction(RecurringTransaction rt) {
+        lock.writeLock().lock();
+        try {
+            RecurringRow row = new RecurringRow(nextRecurringId++, rt.getDescription(), rt.getAmountMinor(), categoryIdFor(rt.getCategory()), rt.getFrequency(), rt.getNextDueDate().toEpochDay());
+            recurring.put(row.id, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteRecurringTransaction(int id) {
+        lock.writeLock().lock();
+        try {
+            recurring.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<RecurringTransaction> getDueRecurringTransactions(long currentTimestamp) {
+        return recurringDueBy(currentTimestamp);
+    }
+
+    @Override
+    public void updateRecurringTransactionDueDate(int id, long newDueDateTimestamp) {
+        lock.writeLock().lock();
+        try {
+            RecurringRow row = recurring.get(id);
+            if (row != null) row.nextDueDay = newDueDateTimestamp;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Applied before returning; there is no commit to wait for. */
+    @Override
+    public CompletableFuture<Void> submitRecurringTransactionDueDate(int id, long newDueDateTimestamp) {
+        updateRecurringTransactionDueDate(id, newDueDateTimestamp);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // --- SAVINGS GOALS ---
+
+    @Override
+    public void addSavingsGoal(SavingsGoal goal) {
+        lock.writeLock().lock();
+        try {
+            GoalRow row = new GoalRow(nextGoalId++, goal.getGoalName(), goal.getTargetAmountMinor(), goal.getCurrentAmountMinor(), goal.getTargetDate());
+            goals.put(row.id, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SavingsGoal> getAllSavingsGoals() {
+        List<SavingsGoal> list = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (GoalRow g : goals.values()) list.add(toGoal(g));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return list;
+    }
+
+    @Override
+    public SavingsGoal getSavingsGoalById(int goalId) {
+        lock.readLock().lock();
+        try {
+            GoalRow g = goals.get(goalId);
+            return g == null ? null : toGoal(g);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateSavingsGoalAmount(int goalId, long newAmountMinor) {
+        lock.writeLock().lock();
+        try {
+            GoalRow g = goals.get(goalId);
+            if (g != null) g.current = newAmountMinor;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteSavingsGoal(int goalId) {
+        lock.writeLock().lock();
+        try {
+            goals.remove(goalId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- INTERNALS (callers hold the lock) ---
+
+    private int categoryIdFor(String name) {
+        Integer id = categoryIds.get(name);
+        if (id != null) return id;
+        int newId = nextCategoryId++;
+        categoryIds.put(name, newId);
+        categoryNames.put(newId, name);
+        return newId;
+    }
+
+    /** Rows dated within the month, oldest first. */
+    private Set<Row> month(YearMonth yearMonth) {
+        long from = yearMonth.atDay(1).toEpochDay();
+        long to = yearMonth.plusMonths(1).atDay(1).toEpochDay();
+        return rows.subSet(new Row(Integer.MIN_VALUE, from, 0, null, 0), true, new Row(Integer.MIN_VALUE, to, 0, null, 0), false);
+    }
+
+    private boolean matches(Row r, TransactionFilter filter) {
+        if (filter.getCategory() != null && !filter.getCategory().equals(categoryNames.get(r.categoryId))) return false;
+        if (filter.getFromDate() != null && r.day < filter.getFromDate().toEpochDay()) return false;
+        return filter.getToDate() == null || r.day <= filter.getToDate().toEpochDay();
+    }
+
+    private void replace(Row old, Row row) {
+        rows.remove(old);
+        rows.add(row);
+        rowsById.put(row.id, row);
+        // Like the SQLite update trigger, an edit that changes nothing isn't logged
+        if (old.day != row.day || old.amount != row.amount || old.categoryId != row.categoryId || !Objects.equals(old.description, row.description)) {
+            logChange(TransactionChange.Type.UPDATE, old, row);
+        }
+    }
+
+    private void remove(Row old) {
+        rows.remove(old);
+        rowsById.remove(old.id);
+        logChange(TransactionChange.Type.DELETE, old, null);
+    }
+
+    private void logChange(TransactionChange.Type type, Row before, Row after) {
+        long seq = ++lastChangeSeq;
+        int id = before != null ? before.id : after.id;
+        changes.put(seq, new TransactionChange(seq, type, id, toRecord(before), toRecord(after)));
+    }
+
+    private TransactionRecord toRecord(Row r) {
+        return r == null ? null : new TransactionRecord(r.id, r.day, r.amount, r.description, categoryNames.get(r.categoryId));
+    }
+
+    private static String[] searchTerms(String query) {
+        return query.trim().toLowerCase(Locale.ROOT).replace("\"", "").split("\\s+");
+    }
+
+    /** True when every term starts some word of the text, as a quoted FTS5 prefix query would require. */
+    private static boolean hasWordPrefixes(String text, String[] terms) {
+        if (text == null) return false;
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        for (String term : terms) {
+            if (term.isEmpty()) continue;
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private List<RecurringTransaction> recurringDueBy(long day) {
+        List<RecurringTransaction> list = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (RecurringRow r : recurring.values()) {
+                if (r.nextDueDay <= day) {
+                    list.add(new RecurringTransaction(r.id, r.description, Money.toMajor(r.amount), categoryNames.get(r.categoryId), r.frequency, LocalDate.ofEpochDay(r.nextDueDay)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return list;
+    }
+
+    private Transaction toTransaction(Row r) {
+        return new Transaction(r.id, LocalDate.ofEpochDay(r.day), Money.toMajor(r.amount), r.description, categoryNames.get(r.categoryId));
+    }
+
+    private Budget toBudget(BudgetRow b) {
+        return new Budget(b.id, categoryNames.get(b.categoryId), Money.toMajor(b.limit), b.lastAlertedMonth);
+    }
+
+    private static SavingsGoal toGoal(GoalRow g) {
+        return new SavingsGoal(g.id, g.name, Money.toMajor(g.target), Money.toMajor(g.current), g.targetDate);
+    }
+}
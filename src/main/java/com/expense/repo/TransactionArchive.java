@@ -0,0 +1,281 @@
+// File: src/main/java/com/expense/repo/TransactionArchive.java
+
+package com.expense.repo;
+
+import com.expense.db.PooledConnection;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cold storage for old transactions: one SQLite file per calendar year, in an archive folder next to
+ * the database and named after it (archive/expenses-2021.db for expenses.db), each with a transactions
+ * table shaped like the live one and the same category ids. An in-memory database has no archive.
+ * A year's file is ATTACHed to a connection only for the query that needs it and detached right
+ * after, so the number of archived years is not limited by SQLite's attached-database cap.
+ * Archived rows are read-only; per-month totals of each year are cached, as they only change on archival.
+ */
+final class TransactionArchive {
+    private static final String DIRECTORY = "archive";
+    private static final String FILE_SUFFIX = ".db";
+
+    @FunctionalInterface
+    interface AttachedQuery<T> {
+        T run(String schema) throws SQLException;
+    }
+
+    /** Per-month, per-category sums (paise) and row counts of one archived year, indexed [month - 1][category id]. */
+    static final class YearTotals {
+        final long[][] totals = new long[12][0];
+        final int[][] counts = new int[12][0];
+
+        long monthTotal(int month) {
+            long total = 0;
+            for (long t : totals[month - 1]) total += t;
+            return total;
+        }
+
+        private void add(int month, int categoryId, long total, int count) {
+            int m = month - 1;
+            if (categoryId >= totals[m].length) {
+                totals[m] = Arrays.copyOf(totals[m], categoryId + 1);
+                counts[m] = Arrays.copyOf(counts[m], categoryId + 1);
+            }
+            totals[m][categoryId] += total;
+            counts[m][categoryId] += count;
+        }
+    }
+
+    private final Supplier<Path> databaseFile;
+    private final Map<Integer, YearTotals> totalsByYear = new ConcurrentHashMap<>();
+
+    /** The archive of whatever database file the supplier names at the time; none while it names none. */
+    TransactionArchive(Supplier<Path> databaseFile) {
+        this.databaseFile = databaseFile;
+    }
+
+    /** Forgets the cached totals, e.g. once the database has been switched or restored. */
+    void invalidate() {
+        totalsByYear.clear();
+    }
+
+    /** Archived years, oldest first. */
+    List<Integer> years() throws SQLException {
+        List<Integer> years = new ArrayList<>();
+        Path directory = directory();
+        if (directory == null || !Files.isDirectory(directory)) return years;
+        String prefix = filePrefix();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + FILE_SUFFIX)) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                try {
+                    years.add(Integer.parseInt(name.substring(prefix.length(), name.length() - FILE_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not list archives in " + directory, e);
+        }
+        years.sort(null);
+        return years;
+    }
+
+    boolean has(int year) {
+        Path file = fileFor(year);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    /**
+     * Runs the query with the year's archive attached to the connection as {@code schema}.
+     * Statements that mention the schema must not go through the connection's statement cache.
+     */
+    <T> T withAttached(PooledConnection conn, int year, AttachedQuery<T> query) throws SQLException {
+        String schema = "archive_" + year;
+        try (PreparedStatement attach = conn.raw().prepareStatement("ATTACH DATABASE ? AS " + schema)) {
+            attach.setString(1, fileFor(year).toAbsolutePath().toString());
+            attach.execute();
+        }
+        try {
+            return query.run(schema);
+        } finally {
+            try (Statement st = conn.createStatement()) {
+                st.execute("DETACH DATABASE " + schema);
+            }
+        }
+    }
+
+    /** Cached month x category totals of an archived year, or null when the year has no archive. */
+    YearTotals totals(PooledConnection conn, int year) throws SQLException {
+        YearTotals cached = totalsByYear.get(year);
+        if (cached != null || !has(year)) return cached;
+        YearTotals loaded = withAttached(conn, year, schema -> {
+            YearTotals totals = new YearTotals();
+            String sql = "SELECT year_month % 100, category_id, SUM(amount), COUNT(*) FROM " + schema + ".transactions GROUP BY 1, 2";
+            try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+                while (rs.next()) totals.add(rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getInt(4));
+            }
+            return totals;
+        });
+        totalsByYear.put(year, loaded);
+        return loaded;
+    }
+
+    /**
+     * Moves every live transaction dated before the cutoff into its year's archive. Must run outside a
+     * transaction (ATTACH is refused inside one). SQLite doesn't commit across files atomically under
+     * WAL, so each year is moved in two transactions: the copy into the archive is committed first, then
+     * the rows are deleted from the live table. A crash in between leaves rows in both places, never in
+     * neither; {@link #reconcile} drops the live copies on the next start. Returns the number of rows moved.
+     */
+    int moveBefore(PooledConnection conn, LocalDate cutoff) throws SQLException {
+        Path directory = directory();
+        if (directory == null) throw new SQLException("An in-memory database has no archive to move transactions into.");
+        long cutoffDay = cutoff.toEpochDay();
+        List<Integer> years = new ArrayList<>();
+        PreparedStatement ps = conn.prepare("SELECT DISTINCT year_month / 100 FROM transactions WHERE timestamp < ? ORDER BY 1");
+        ps.setLong(1, cutoffDay);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) years.add(rs.getInt(1));
+        }
+        if (years.isEmpty()) return 0;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new SQLException("Could not create archive directory " + directory, e);
+        }
+        int moved = 0;
+        for (int year : years) {
+            long from = LocalDate.of(year, 1, 1).toEpochDay();
+            long to = Math.min(LocalDate.of(year + 1, 1, 1).toEpochDay(), cutoffDay);
+            moved += withAttached(conn, year, schema -> moveRange(conn, schema, from, to));
+            totalsByYear.remove(year);
+        }
+        return moved;
+    }
+
+    /**
+     * Makes the live table and the archive agree again, after a move was cut short between its two
+     * commits or after restoring a backup taken before some of its rows were archived: live rows whose
+     * id is archived are dropped, as the archive's copy is the later one, and new ids are kept clear of
+     * archived ones. Must run outside a transaction. Returns the number of live rows dropped.
+     */
+    int reconcile(PooledConnection conn) throws SQLException {
+        int dropped = 0;
+        for (int year : years()) {
+            dropped += withAttached(conn, year, schema -> inTransaction(conn, () -> {
+                int removed = 0;
+                try (PreparedStatement delete = conn.raw().prepareStatement(
+                        "DELETE FROM main.transactions WHERE id IN (SELECT id FROM " + schema + ".transactions)")) {
+                    long loggedBefore = TransactionChangeLog.latestSeq(conn);
+                    removed = delete.executeUpdate();
+                    // Still counted, in the archive; see moveRange
+                    if (removed > 0) TransactionChangeLog.markArchived(conn, loggedBefore);
+                }
+                long maxArchivedId;
+                try (Statement st = conn.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + schema + ".transactions")) {
+                    maxArchivedId = rs.next() ? rs.getLong(1) : 0;
+                }
+                PreparedStatement bump = conn.prepare("UPDATE sqlite_sequence SET seq = ? WHERE name = 'transactions' AND seq < ?");
+                bump.setLong(1, maxArchivedId);
+                bump.setLong(2, maxArchivedId);
+                if (bump.executeUpdate() == 0 && maxArchivedId > 0) {
+                    PreparedStatement insert = conn.prepare("INSERT INTO sqlite_sequence(name, seq) SELECT 'transactions', ? " +
+                            "WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'transactions')");
+                    insert.setLong(1, maxArchivedId);
+                    insert.executeUpdate();
+                }
+                return removed;
+            }));
+        }
+        if (dropped > 0) totalsByYear.clear();
+        return dropped;
+    }
+
+    private static int moveRange(PooledConnection conn, String schema, long fromDay, long toDay) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + schema + ".transactions (" +
+                    "id INTEGER PRIMARY KEY, timestamp INTEGER NOT NULL, amount INTEGER NOT NULL, " +
+                    "description TEXT, category_id INTEGER NOT NULL, year_month INTEGER NOT NULL)");
+            st.execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_archive_timestamp_id ON transactions(timestamp, id)");
+        }
+        // First commit: only the archive file is written. Re-running after a crash copies the rows over themselves.
+        inTransaction(conn, () -> {
+            try (PreparedStatement copy = conn.raw().prepareStatement("INSERT OR REPLACE INTO " + schema + ".transactions(id, timestamp, amount, description, category_id, year_month) " +
+                    "SELECT id, timestamp, amount, description, category_id, year_month FROM main.transactions WHERE timestamp >= ? AND timestamp < ?")) {
+                copy.setLong(1, fromDay);
+                copy.setLong(2, toDay);
+                return copy.executeUpdate();
+            }
+        });
+        // Second commit: only the live database is written
+        return inTransaction(conn, () -> {
+            try (PreparedStatement delete = conn.raw().prepareStatement("DELETE FROM main.transactions WHERE timestamp >= ? AND timestamp < ?")) {
+                // The delete triggers keep the rollup and the search index in step with the smaller live table.
+                // They also log each row as deleted; the rows still count, so those entries are relabelled.
+                long loggedBefore = TransactionChangeLog.latestSeq(conn);
+                delete.setLong(1, fromDay);
+                delete.setLong(2, toDay);
+                int moved = delete.executeUpdate();
+                TransactionChangeLog.markArchived(conn, loggedBefore);
+                return moved;
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        int run() throws SQLException;
+    }
+
+    private static int inTransaction(PooledConnection conn, Work work) throws SQLException {
+        Connection raw = conn.raw();
+        raw.setAutoCommit(false);
+        try {
+            int result = work.run();
+            raw.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            raw.rollback();
+            throw e;
+        } finally {
+            raw.setAutoCommit(true);
+        }
+    }
+
+    /** The archive folder beside the database file, or null for a database without one. */
+    private Path directory() {
+        Path file = databaseFile.get();
+        if (file == null) return null;
+        Path parent = file.toAbsolutePath().getParent();
+        return parent == null ? Paths.get(DIRECTORY) : parent.resolve(DIRECTORY);
+    }
+
+    /** Archive files carry the database's name, so databases sharing a folder don't share an archive. */
+    private String filePrefix() {
+        String name = databaseFile.get().getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "-";
+    }
+
+    private Path fileFor(int year) {
+        Path directory = directory();
+        return directory == null ? null : directory.resolve(filePrefix() + year + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,122 @@
+// File: src/main/java/com/expense/repo/TransactionChangeLog.java
+
+package com.expense.repo;
+
+import com.expense.db.PooledConnection;
+import com.expense.model.TransactionChange;
+import com.expense.model.TransactionRecord;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and trims transaction_changes, the log the triggers on transactions append to (migration 10),
+ * along with the trigger on category names (migration 12).
+ * Consumers remember the seq of the last change they applied and ask for what came after it.
+ * Once every consumer listed in change_consumers has acknowledged a change, compaction deletes it.
+ */
+final class TransactionChangeLog {
+    private static final String LATEST_SEQ_SQL = "SELECT COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'transaction_changes'), 0)";
+
+    private TransactionChangeLog() {
+    }
+
+    /** Seq of the newest change ever logged, whether or not it has been compacted since; 0 before the first. */
+    static long latestSeq(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare(LATEST_SEQ_SQL).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    static List<TransactionChange> since(PooledConnection conn, long afterSeq, int limit) throws SQLException {
+        long latest = latestSeq(conn);
+        long oldest;
+        try (ResultSet rs = conn.prepare("SELECT MIN(seq) FROM transaction_changes").executeQuery()) {
+            rs.next();
+            oldest = rs.getObject(1) == null ? latest + 1 : rs.getLong(1);
+        }
+        // Ahead of the log happens after restoring an older database
+        if (afterSeq + 1 < oldest || afterSeq > latest) throw new ChangeLogGapException(afterSeq, oldest, latest);
+        List<TransactionChange> changes = new ArrayList<>();
+        PreparedStatement ps = conn.prepare("SELECT seq, op, transaction_id, " +
+                "old_timestamp, old_amount, old_description, old_category, new_timestamp, new_amount, new_description, new_category " +
+                "FROM transaction_changes WHERE seq > ? ORDER BY seq LIMIT ?");
+        ps.setLong(1, afterSeq);
+        ps.setInt(2, limit);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(3);
+                TransactionChange.Type type = typeOf(rs.getString(2));
+                if (type == TransactionChange.Type.RENAME) {
+                    changes.add(TransactionChange.renamed(rs.getLong(1), rs.getString(7), rs.getString(11)));
+                    continue;
+                }
+                TransactionRecord before = type == TransactionChange.Type.INSERT ? null
+                        : new TransactionRecord(id, rs.getLong(4), rs.getLong(5), rs.getString(6), rs.getString(7));
+                TransactionRecord after = type != TransactionChange.Type.INSERT && type != TransactionChange.Type.UPDATE ? null
+                        : new TransactionRecord(id, rs.getLong(8), rs.getLong(9), rs.getString(10), rs.getString(11));
+                changes.add(new TransactionChange(rs.getLong(1), type, id, before, after));
+            }
+        }
+        return changes;
+    }
+
+    /** Moves the consumer's acknowledged seq forward (never back), registering it on first use. */
+    static void acknowledge(PooledConnection conn, String consumer, long seq) throws SQLException {
+        PreparedStatement ps = conn.prepare("INSERT INTO change_consumers(name, seq) VALUES(?, ?) " +
+                "ON CONFLICT(name) DO UPDATE SET seq = MAX(seq, excluded.seq)");
+        ps.setString(1, consumer);
+        ps.setLong(2, seq);
+        ps.executeUpdate();
+    }
+
+    /** The state the consumer last saved, or null. */
+    static byte[] state(PooledConnection conn, String consumer) throws SQLException {
+        PreparedStatement ps = conn.prepare("SELECT state FROM change_consumers WHERE name = ?");
+        ps.setString(1, consumer);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getBytes(1) : null;
+        }
+    }
+
+    /** Acknowledges the seq as {@link #acknowledge} does and replaces the consumer's saved state. */
+    static void saveState(PooledConnection conn, String consumer, long seq, byte[] state) throws SQLException {
+        PreparedStatement ps = conn.prepare("INSERT INTO change_consumers(name, seq, state) VALUES(?, ?, ?) " +
+                "ON CONFLICT(name) DO UPDATE SET seq = MAX(seq, excluded.seq), state = excluded.state");
+        ps.setString(1, consumer);
+        ps.setLong(2, seq);
+        ps.setBytes(3, state);
+        ps.executeUpdate();
+    }
+
+    /** Deletes the changes every registered consumer has acknowledged, or all of them when there are no consumers. */
+    static int compact(PooledConnection conn) throws SQLException {
+        PreparedStatement ps = conn.prepare("DELETE FROM transaction_changes WHERE seq <= " +
+                "COALESCE((SELECT MIN(seq) FROM change_consumers), (" + LATEST_SEQ_SQL + "))");
+        return ps.executeUpdate();
+    }
+
+    /**
+     * Relabels the deletes logged after {@code afterSeq} as archival. Called by the archive inside the
+     * transaction that moved the rows, when those deletes are the only changes logged since.
+     */
+    static void markArchived(PooledConnection conn, long afterSeq) throws SQLException {
+        PreparedStatement ps = conn.prepare("UPDATE transaction_changes SET op = 'A' WHERE seq > ? AND op = 'D'");
+        ps.setLong(1, afterSeq);
+        ps.executeUpdate();
+    }
+
+    private static TransactionChange.Type typeOf(String op) {
+        switch (op) {
+            case "I": return TransactionChange.Type.INSERT;
+            case "U": return TransactionChange.Type.UPDATE;
+            case "D": return TransactionChange.Type.DELETE;
+            case "A": return TransactionChange.Type.ARCHIVE;
+            case "R": return TransactionChange.Type.RENAME;
+            default: throw new IllegalStateException("Unknown change type in transaction_changes: " + op);
+        }
+    }
+}
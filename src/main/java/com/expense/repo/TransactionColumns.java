@@ -0,0 +1,497 @@
+// File: src/main/java/com/expense/repo/TransactionColumns.java
+
+package com.expense.repo;
+
+import com.expense.db.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented, in-memory copy of the transactions table for analytics: one primitive array
+ * per column, descriptions dictionary-encoded. Rows are kept sorted by (epoch day, id), so any
+ * date range is two binary searches and one contiguous scan, with no boxing and no SQL.
+ * Loaded once, then kept current by the repository's after-commit hooks on the writer thread.
+ */
+final class TransactionColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int LOAD_FETCH_SIZE = 2000;
+
+    /** Receives one row of {@link #forEachNewest}. */
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(int id, long epochDay, long amountMinor, String description, int categoryId) throws SQLException;
+    }
+
+    /** Rows for {@link #insertAll}, collected in any order. */
+    static final class NewRows {
+        private int size = 0;
+        private int[] ids;
+        private int[] days;
+        private long[] amounts;
+        private String[] descriptions;
+        private int[] categoryIds;
+
+        NewRows(int capacity) {
+            ids = new int[capacity];
+            days = new int[capacity];
+            amounts = new long[capacity];
+            descriptions = new String[capacity];
+            categoryIds = new int[capacity];
+        }
+
+        void add(int id, long epochDay, long amountMinor, String description, int categoryId) {
+            if (size == ids.length) {
+                int capacity = Math.max(16, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                days = Arrays.copyOf(days, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+            }
+            ids[size] = id;
+            days[size] = (int) epochDay;
+            amounts[size] = amountMinor;
+            descriptions[size] = description;
+            categoryIds[size] = categoryId;
+            size++;
+        }
+
+        /** Orders the rows by (day, id), the column store's order. */
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> days[a] != days[b] ? Integer.compare(days[a], days[b]) : Integer.compare(ids[a], ids[b]));
+            int[] sortedIds = new int[size], sortedDays = new int[size], sortedCategoryIds = new int[size];
+            long[] sortedAmounts = new long[size];
+            String[] sortedDescriptions = new String[size];
+            for (int i = 0; i < size; i++) {
+                int from = order[i];
+                sortedIds[i] = ids[from];
+                sortedDays[i] = days[from];
+                sortedAmounts[i] = amounts[from];
+                sortedDescriptions[i] = descriptions[from];
+                sortedCategoryIds[i] = categoryIds[from];
+            }
+            ids = sortedIds;
+            days = sortedDays;
+            amounts = sortedAmounts;
+            descriptions = sortedDescriptions;
+            categoryIds = sortedCategoryIds;
+        }
+
+        private void moveRow(int from, int to) {
+            ids[to] = ids[from];
+            days[to] = days[from];
+            amounts[to] = amounts[from];
+            descriptions[to] = descriptions[from];
+            categoryIds[to] = categoryIds[from];
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+    private int size = 0;
+    private int[] ids = new int[0];
+    private int[] days = new int[0];
+    private long[] amounts = new long[0];
+    private int[] categoryIds = new int[0];
+    private int[] descriptionCodes = new int[0];
+    private int maxCategoryId = 0;
+    private final List<String> descriptions = new ArrayList<>();
+    private final Map<String, Integer> descriptionCodesByText = new HashMap<>();
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Replaces the contents with the committed rows visible to the connection. */
+    void load(PooledConnection conn) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            ensureCapacity(INITIAL_CAPACITY);
+            PreparedStatement ps = conn.prepare("SELECT id, timestamp, amount, description, category_id FROM transactions ORDER BY timestamp, id");
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ensureCapacity(size + 1);
+                    setRow(size++, rs.getInt(1), (int) rs.getLong(2), rs.getLong(3), rs.getString(4), rs.getInt(5));
+                }
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops everything; the next analytics call loads afresh. */
+    void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- INCREMENTAL MAINTENANCE (writer thread, after commit) ---
+    // No-ops until loaded: the load itself will pick the row up.
+
+    void insert(int id, long epochDay, long amountMinor, String description, int categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            int at = position((int) epochDay, id);
+            if (at < size && ids[at] == id && days[at] == (int) epochDay) return; // already loaded
+            ensureCapacity(size + 1);
+            shift(at, 1);
+            size++;
+            setRow(at, id, (int) epochDay, amountMinor, description, categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a batch of rows in one merging pass from the back, so each existing row moves at most
+     * once however many rows arrive. Rows already loaded are skipped.
+     */
+    void insertAll(NewRows batch) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            batch.sort();
+            // Drop rows the load already picked up, keeping the batch sorted
+            int count = 0;
+            for (int j = 0; j < batch.size; j++) {
+                if (find(batch.days[j], batch.ids[j]) < 0) batch.moveRow(j, count++);
+            }
+            ensureCapacity(size + count);
+            int i = size - 1;
+            int w = size + count - 1;
+            for (int j = count - 1; j >= 0; w--) {
+                if (i >= 0 && (days[i] > batch.days[j] || days[i] == batch.days[j] && ids[i] > batch.ids[j])) {
+                    copyRow(i--, w);
+                } else {
+                    setRow(w, batch.ids[j], batch.days[j], batch.amounts[j], batch.descriptions[j], batch.categoryIds[j]);
+                    j--;
+                }
+            }
+            size += count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Replaces a row; {@code oldEpochDay} is the date it was stored under, so it is found by binary search. */
+    void update(int id, long oldEpochDay, long epochDay, long amountMinor, String description, int categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            int from = find((int) oldEpochDay, id);
+            if (from < 0) {
+                // Not loaded under that date (it was already stale); a full scan is the only way to be sure
+                removeLocked(id);
+                insert(id, epochDay, amountMinor, description, categoryId); // re-entrant, readers never see the row missing
+                return;
+            }
+            // Where the row belongs once taken out; only the rows between the two places move
+            int to = position((int) epochDay, id);
+            if (to > from) to--;
+            if (to > from) {
+                moveRows(from + 1, from, to - from);
+            } else if (to < from) {
+                moveRows(to, to + 1, from - to);
+            }
+            setRow(to, id, (int) epochDay, amountMinor, description, categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes a row, found by binary search on the date it was stored under. */
+    void delete(int id, long epochDay) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            int at = find((int) epochDay, id);
+            if (at >= 0) {
+                shift(at + 1, -1);
+                size--;
+            } else {
+                removeLocked(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Sets the category of the first {@code count} listed rows, each found by binary search on its date. */
+    void recategorize(int[] rowIds, int[] rowDays, int count, int categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            for (int i = 0; i < count; i++) {
+                int at = locate(rowDays[i], rowIds[i]);
+                if (at >= 0) categoryIds[at] = categoryId;
+            }
+            if (categoryId > maxCategoryId) maxCategoryId = categoryId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the first {@code count} listed rows, each found by binary search on its date, keeping the
+     * rest in order. Only the rows after the first removed one move, each run of them once.
+     */
+    void deleteAll(int[] rowIds, int[] rowDays, int count) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            int[] removed = new int[count];
+            int found = 0;
+            for (int i = 0; i < count; i++) {
+                int at = locate(rowDays[i], rowIds[i]);
+                if (at >= 0) removed[found++] = at;
+            }
+            if (found == 0) return;
+            Arrays.sort(removed, 0, found);
+            int to = removed[0];
+            for (int k = 0; k < found; k++) {
+                int from = removed[k] + 1;
+                int end = k + 1 < found ? removed[k + 1] : size;
+                moveRows(from, to, end - from);
+                to += end - from;
+            }
+            size -= found;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- AGGREGATES, all in paise ---
+
+    /** Per-category totals for days in [fromDay, toDay), indexed by category id. */
+    long[] categoryTotals(long fromDay, long toDay) {
+        lock.readLock().lock();
+        try {
+            long[] totals = new long[maxCategoryId + 1];
+            for (int i = lowerBound(fromDay), end = lowerBound(toDay); i < end; i++) {
+                totals[categoryIds[i]] += amounts[i];
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Per-category row counts for days in [fromDay, toDay), indexed by category id. */
+    int[] categoryCounts(long fromDay, long toDay) {
+        lock.readLock().lock();
+        try {
+            int[] counts = new int[maxCategoryId + 1];
+            for (int i = lowerBound(fromDay), end = lowerBound(toDay); i < end; i++) {
+                counts[categoryIds[i]]++;
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long total(long fromDay, long toDay) {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int i = lowerBound(fromDay), end = lowerBound(toDay); i < end; i++) {
+                total += amounts[i];
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long categoryTotal(int categoryId, long fromDay, long toDay) {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int i = lowerBound(fromDay), end = lowerBound(toDay); i < end; i++) {
+                if (categoryIds[i] == categoryId) total += amounts[i];
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Totals for each month of the year; index 0 is January. */
+    long[] monthlyTotals(int year) {
+        long[] totals = new long[12];
+        for (int m = 0; m < 12; m++) {
+            YearMonth month = YearMonth.of(year, m + 1);
+            totals[m] = total(month.atDay(1).toEpochDay(), month.plusMonths(1).atDay(1).toEpochDay());
+        }
+        return totals;
+    }
+
+    /** For each category id, the number of distinct months from {@code fromDay} on in which it had transactions. */
+    int[] activeMonths(long fromDay) {
+        lock.readLock().lock();
+        try {
+            int[] months = new int[maxCategoryId + 1];
+            int[] lastMonthSeen = new int[maxCategoryId + 1];
+            int monthKey = 0;
+            long nextMonthStart = Long.MIN_VALUE;
+            for (int i = lowerBound(fromDay); i < size; i++) {
+                if (days[i] >= nextMonthStart) {
+                    // Rows are in date order, so the month only needs working out when a boundary is crossed
+                    LocalDate date = LocalDate.ofEpochDay(days[i]);
+                    monthKey = TransactionRepository.yearMonthKey(date);
+                    nextMonthStart = date.withDayOfMonth(1).plusMonths(1).toEpochDay();
+                }
+                int c = categoryIds[i];
+                if (lastMonthSeen[c] != monthKey) {
+                    lastMonthSeen[c] = monthKey;
+                    months[c]++;
+                }
+            }
+            return months;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Visits up to {@code limit} rows, newest first by (day, id). */
+    void forEachNewest(int limit, RowConsumer action) throws SQLException {
+        lock.readLock().lock();
+        try {
+            for (int i = size - 1; i >= 0 && i >= size - limit; i--) {
+                action.accept(ids[i], days[i], amounts[i], descriptions.get(descriptionCodes[i]), categoryIds[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- INTERNALS (callers hold the lock) ---
+
+    /** First row whose day is >= the given day. */
+    private int lowerBound(long day) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Insertion point that keeps rows ordered by (day, id). */
+    private int position(int day, int id) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day || (days[mid] == day && ids[mid] < id)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Index of the row with this (day, id), or -1. */
+    private int find(int day, int id) {
+        int at = position(day, id);
+        return at < size && ids[at] == id && days[at] == day ? at : -1;
+    }
+
+    /** Index of the row, by its (day, id) if it was loaded under that date, else by a scan for the id; or -1. */
+    private int locate(int day, int id) {
+        int at = find(day, id);
+        return at >= 0 ? at : indexOf(id);
+    }
+
+    private int indexOf(int id) {
+        // The old date isn't known here, so look the id up directly; a linear scan of one int column
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    private void removeLocked(int id) {
+        int at = indexOf(id);
+        if (at >= 0) {
+            shift(at + 1, -1);
+            size--;
+        }
+    }
+
+    /** Moves rows [from, size) by delta positions. */
+    private void shift(int from, int delta) {
+        int count = size - from;
+        if (count > 0) moveRows(from, from + delta, count);
+    }
+
+    /** Moves {@code count} rows starting at {@code from} so they start at {@code to}; overlapping is fine. */
+    private void moveRows(int from, int to, int count) {
+        System.arraycopy(ids, from, ids, to, count);
+        System.arraycopy(days, from, days, to, count);
+        System.arraycopy(amounts, from, amounts, to, count);
+        System.arraycopy(categoryIds, from, categoryIds, to, count);
+        System.arraycopy(descriptionCodes, from, descriptionCodes, to, count);
+    }
+
+    private void copyRow(int from, int to) {
+        ids[to] = ids[from];
+        days[to] = days[from];
+        amounts[to] = amounts[from];
+        categoryIds[to] = categoryIds[from];
+        descriptionCodes[to] = descriptionCodes[from];
+    }
+
+    private void setRow(int i, int id, int day, long amountMinor, String description, int categoryId) {
+        ids[i] = id;
+        days[i] = day;
+        amounts[i] = amountMinor;
+        categoryIds[i] = categoryId;
+        descriptionCodes[i] = descriptionCodesByText.computeIfAbsent(description, text -> {
+            descriptions.add(text);
+            return descriptions.size() - 1;
+        });
+        if (categoryId > maxCategoryId) maxCategoryId = categoryId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        days = Arrays.copyOf(days, newCapacity);
+        amounts = Arrays.copyOf(amounts, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        descriptionCodes = Arrays.copyOf(descriptionCodes, newCapacity);
+    }
+
+    private void clearLocked() {
+        loaded = false;
+        size = 0;
+        ids = new int[0];
+        days = new int[0];
+        amounts = new long[0];
+        categoryIds = new int[0];
+        descriptionCodes = new int[0];
+        maxCategoryId = 0;
+        descriptions.clear();
+        descriptionCodesByText.clear();
+    }
+}
@@ -3,41 +3,82 @@
 package com.expense.repo;
 
 import com.expense.db.Database;
+import com.expense.db.DatabaseWriter;
+import com.expense.db.PooledConnection;
 import com.expense.model.Budget;
+import com.expense.model.BulkChange;
+import com.expense.model.Money;
 import com.expense.model.RecurringTransaction;
 import com.expense.model.SavingsGoal;
 import com.expense.model.Transaction;
+import com.expense.model.TransactionChange;
 import com.expense.model.TransactionData;
+import com.expense.model.TransactionFilter;
+import com.expense.model.TransactionRecord;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-public class TransactionRepository {
+/** The SQLite {@link TransactionStore}, on whatever database {@link Database} is pointed at. */
+public class TransactionRepository implements TransactionStore {
 
+    private final CategoryDictionary categories = new CategoryDictionary();
+    // Every mutation runs on the single writer thread, grouped with concurrent writes into one commit
+    private final DatabaseWriter writer = DatabaseWriter.get();
+    // Analytics are answered from memory; kept current by after-commit hooks on every transaction write
+    private final TransactionColumns columns = new TransactionColumns();
+    // Transactions older than the archive cutoff live in per-year files beside the database file; the table,
+    // columns and rollup hold the rest. Follows Database's URL, so an in-memory database has no archive.
+    private final TransactionArchive archive = new TransactionArchive(Database::getFile);
+    /** Recent-month analytics only read the live table, so at least this many months always stay in it. */
+    public static final int MIN_LIVE_MONTHS = 12;
+
+    public TransactionRepository() {
+        // A rolled back write may have created categories that no longer exist
+        writer.addRollbackListener(categories::invalidate);
+    }
+
+    /** Also run after a restore: the restored live table may hold rows that have been archived since. */
     public void init() throws SQLException {
         Database.createTables();
+        categories.invalidate();
+        columns.invalidate();
+        archive.invalidate();
+        // ATTACH is refused inside a transaction, so this runs on the writer thread without a group around it
+        if (!archive.years().isEmpty()) writer.executeAlone(archive::reconcile);
+    }
+
+    /** The YYYYMM key stored in transactions.year_month, e.g. 202403 for March 2024. */
+    public static int yearMonthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public static int yearMonthKey(YearMonth yearMonth) {
+        return yearMonth.getYear() * 100 + yearMonth.getMonthValue();
     }
 
     // --- THIS IS THE UPGRADED METHOD FOR THE NEW BAR CHART ---
-    public Map<String, Double> getMonthlyTotalsForYear(int year) throws SQLException {
-        Map<String, Double> map = new HashMap<>();
-        // The format is 'YYYY-MM'. The second strftime formats the timestamp into a year for the WHERE clause.
-        String sql = "SELECT strftime('%Y-%m', timestamp, 'unixepoch') as month, SUM(amount) as total " +
-                "FROM transactions WHERE strftime('%Y', timestamp, 'unixepoch') = ? " +
-                "GROUP BY month";
-        try (Connection conn = Database.connect();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, String.valueOf(year));
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    map.put(rs.getString("month"), rs.getDouble("total"));
-                }
-            }
+    /** Spending per month of the year in paise, keyed 'YYYY-MM'. */
+    public Map<String, Long> getMonthlyTotalsForYear(int year) throws SQLException {
+        Map<String, Long> map = new HashMap<>();
+        long[] totals = columns().monthlyTotals(year);
+        TransactionArchive.YearTotals archived = archivedTotals(year);
+        for (int m = 0; m < totals.length; m++) {
+            long total = totals[m] + (archived == null ? 0 : archived.monthTotal(m + 1));
+            // Keys stay in the 'YYYY-MM' format the bar chart expects
+            if (total != 0) map.put(String.format("%d-%02d", year, m + 1), total);
         }
         return map;
     }
@@ -45,51 +86,58 @@ public class TransactionRepository {
     // --- SAVINGS GOAL METHODS ---
     public void addSavingsGoal(SavingsGoal goal) throws SQLException {
         String sql = "INSERT INTO savings_goals(goal_name, target_amount, current_amount, target_date_timestamp) VALUES(?,?,?,?)";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setString(1, goal.getGoalName());
-            ps.setDouble(2, goal.getTargetAmount());
-            ps.setDouble(3, goal.getCurrentAmount());
+            ps.setLong(2, goal.getTargetAmountMinor());
+            ps.setLong(3, goal.getCurrentAmountMinor());
             if (goal.getTargetDate() != null) ps.setLong(4, goal.getTargetDate().toEpochDay());
             else ps.setNull(4, Types.INTEGER);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public List<SavingsGoal> getAllSavingsGoals() throws SQLException {
         List<SavingsGoal> goals = new ArrayList<>();
         String sql = "SELECT * FROM savings_goals ORDER BY id";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+        try (PooledConnection conn = Database.borrow(); ResultSet rs = conn.prepare(sql).executeQuery()) {
             while (rs.next()) {
                 long dateTimestamp = rs.getLong("target_date_timestamp");
                 LocalDate targetDate = rs.wasNull() ? null : LocalDate.ofEpochDay(dateTimestamp);
-                goals.add(new SavingsGoal(rs.getInt("id"), rs.getString("goal_name"), rs.getDouble("target_amount"), rs.getDouble("current_amount"), targetDate));
+                goals.add(new SavingsGoal(rs.getInt("id"), rs.getString("goal_name"), Money.toMajor(rs.getLong("target_amount")), Money.toMajor(rs.getLong("current_amount")), targetDate));
             }
         }
         return goals;
     }
-    public void updateSavingsGoalAmount(int goalId, double newAmount) throws SQLException {
+    public void updateSavingsGoalAmount(int goalId, long newAmountMinor) throws SQLException {
         String sql = "UPDATE savings_goals SET current_amount = ? WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, newAmount);
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setLong(1, newAmountMinor);
             ps.setInt(2, goalId);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public void deleteSavingsGoal(int goalId) throws SQLException {
         String sql = "DELETE FROM savings_goals WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setInt(1, goalId);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public SavingsGoal getSavingsGoalById(int goalId) throws SQLException {
         String sql = "SELECT * FROM savings_goals WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PooledConnection conn = Database.borrow()) {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setInt(1, goalId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     long dateTimestamp = rs.getLong("target_date_timestamp");
                     LocalDate targetDate = rs.wasNull() ? null : LocalDate.ofEpochDay(dateTimestamp);
-                    return new SavingsGoal(rs.getInt("id"), rs.getString("goal_name"), rs.getDouble("target_amount"), rs.getDouble("current_amount"), targetDate);
+                    return new SavingsGoal(rs.getInt("id"), rs.getString("goal_name"), Money.toMajor(rs.getLong("target_amount")), Money.toMajor(rs.getLong("current_amount")), targetDate);
                 }
             }
         }
@@ -100,244 +148,803 @@ public class TransactionRepository {
     public List<RecurringTransaction> getAllRecurringTransactions() throws SQLException {
         List<RecurringTransaction> list = new ArrayList<>();
         String sql = "SELECT * FROM recurring_transactions ORDER BY next_due_timestamp ASC";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+        try (PooledConnection conn = Database.borrow(); ResultSet rs = conn.prepare(sql).executeQuery()) {
             while (rs.next()) {
-                list.add(new RecurringTransaction(rs.getInt("id"), rs.getString("description"), rs.getDouble("amount"), rs.getString("category"), RecurringTransaction.Frequency.valueOf(rs.getString("frequency")), LocalDate.ofEpochDay(rs.getLong("next_due_timestamp"))));
+                list.add(new RecurringTransaction(rs.getInt("id"), rs.getString("description"), Money.toMajor(rs.getLong("amount")), categories.nameOf(conn, rs.getInt("category_id")), RecurringTransaction.Frequency.valueOf(rs.getString("frequency")), LocalDate.ofEpochDay(rs.getLong("next_due_timestamp"))));
             }
         }
         return list;
     }
     public void addRecurringTransaction(RecurringTransaction rt) throws SQLException {
-        String sql = "INSERT INTO recurring_transactions(description, amount, category, frequency, next_due_timestamp) VALUES(?,?,?,?,?)";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        String sql = "INSERT INTO recurring_transactions(description, amount, category_id, frequency, next_due_timestamp) VALUES(?,?,?,?,?)";
+        writer.execute(conn -> {
+            int categoryId = categories.idFor(conn, rt.getCategory());
+            PreparedStatement ps = conn.prepare(sql);
             ps.setString(1, rt.getDescription());
-            ps.setDouble(2, rt.getAmount());
-            ps.setString(3, rt.getCategory());
+            ps.setLong(2, rt.getAmountMinor());
+            ps.setInt(3, categoryId);
             ps.setString(4, rt.getFrequency().name());
             ps.setLong(5, rt.getNextDueDate().toEpochDay());
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public void deleteRecurringTransaction(int id) throws SQLException {
         String sql = "DELETE FROM recurring_transactions WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setInt(1, id);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public List<RecurringTransaction> getDueRecurringTransactions(long currentTimestamp) throws SQLException {
         List<RecurringTransaction> dueItems = new ArrayList<>();
         String sql = "SELECT * FROM recurring_transactions WHERE next_due_timestamp <= ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PooledConnection conn = Database.borrow()) {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setLong(1, currentTimestamp);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    dueItems.add(new RecurringTransaction(rs.getInt("id"), rs.getString("description"), rs.getDouble("amount"), rs.getString("category"), RecurringTransaction.Frequency.valueOf(rs.getString("frequency")), LocalDate.ofEpochDay(rs.getLong("next_due_timestamp"))));
+                    dueItems.add(new RecurringTransaction(rs.getInt("id"), rs.getString("description"), Money.toMajor(rs.getLong("amount")), categories.nameOf(conn, rs.getInt("category_id")), RecurringTransaction.Frequency.valueOf(rs.getString("frequency")), LocalDate.ofEpochDay(rs.getLong("next_due_timestamp"))));
                 }
             }
         }
         return dueItems;
     }
     public void updateRecurringTransactionDueDate(int id, long newDueDateTimestamp) throws SQLException {
+        writer.execute(dueDateUpdate(id, newDueDateTimestamp));
+    }
+    /** Queues the update without waiting; the future completes once it has been committed. */
+    public CompletableFuture<Void> submitRecurringTransactionDueDate(int id, long newDueDateTimestamp) {
+        return writer.submit(dueDateUpdate(id, newDueDateTimestamp));
+    }
+    private static DatabaseWriter.Write<Void> dueDateUpdate(int id, long newDueDateTimestamp) {
         String sql = "UPDATE recurring_transactions SET next_due_timestamp = ? WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        return conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setLong(1, newDueDateTimestamp);
             ps.setInt(2, id);
             ps.executeUpdate();
-        }
+            return null;
+        };
     }
 
     // --- ALL OTHER METHODS ---
     public Map<String, Double> getCategoryAverageSpending() throws SQLException {
         Map<String, Double> averages = new HashMap<>();
-        String sql = "SELECT category, AVG(amount) as avg_spend FROM transactions GROUP BY category";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                averages.put(rs.getString("category"), rs.getDouble("avg_spend"));
+        TransactionColumns snapshot = columns();
+        Map<Integer, long[]> sumsAndCounts = new HashMap<>();
+        long[] totals = snapshot.categoryTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        int[] counts = snapshot.categoryCounts(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) sumsAndCounts.put(c, new long[] {totals[c], counts[c]});
+        }
+        try (PooledConnection conn = Database.borrow()) {
+            for (int year : archive.years()) {
+                TransactionArchive.YearTotals archived = archive.totals(conn, year);
+                for (int m = 0; m < 12; m++) {
+                    for (int c = 0; c < archived.counts[m].length; c++) {
+                        if (archived.counts[m][c] == 0) continue;
+                        long[] sumAndCount = sumsAndCounts.computeIfAbsent(c, k -> new long[2]);
+                        sumAndCount[0] += archived.totals[m][c];
+                        sumAndCount[1] += archived.counts[m][c];
+                    }
+                }
+            }
+            for (Map.Entry<Integer, long[]> e : sumsAndCounts.entrySet()) {
+                averages.put(categories.nameOf(conn, e.getKey()), Money.toMajor(e.getValue()[0]) / e.getValue()[1]);
             }
         }
         return averages;
     }
+    // RETURNING gives each row's id as it is inserted, whatever ids it gets (explicit, reused, or not consecutive)
+    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO transactions(timestamp, amount, description, category_id, year_month) VALUES(?,?,?,?,?) RETURNING id";
+
     public void insert(Transaction t) throws SQLException {
-        String sql = "INSERT INTO transactions(timestamp, amount, description, category) VALUES(?,?,?,?)";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, t.getDate().toEpochDay());
-            ps.setDouble(2, t.getAmount());
-            ps.setString(3, t.getDescription());
-            ps.setString(4, t.getCategory());
-            ps.executeUpdate();
+        writer.execute(conn -> {
+            int categoryId = categories.idFor(conn, t.getCategory());
+            PreparedStatement ps = conn.prepare(INSERT_TRANSACTION_SQL);
+            bindInsert(ps, t, categoryId);
+            int id = insertedId(ps);
+            writer.afterCommit(() -> columns.insert(id, t.getDate().toEpochDay(), t.getAmountMinor(), t.getDescription(), categoryId));
+            return null;
+        });
+    }
+    /**
+     * Inserts all rows with one prepared statement as a single write: the rows share one commit (and one
+     * fsync) with whatever else the writer groups them with. Either every row is written or none is.
+     * The column store takes the whole batch in one merge once it has committed.
+     */
+    public void insertAll(List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) return;
+        writer.execute(conn -> {
+            Map<String, Integer> categoryIds = new HashMap<>();
+            PreparedStatement ps = conn.prepare(INSERT_TRANSACTION_SQL);
+            TransactionColumns.NewRows inserted = new TransactionColumns.NewRows(transactions.size());
+            for (Transaction t : transactions) {
+                Integer categoryId = categoryIds.get(t.getCategory());
+                if (categoryId == null) {
+                    categoryId = categories.idFor(conn, t.getCategory());
+                    categoryIds.put(t.getCategory(), categoryId);
+                }
+                bindInsert(ps, t, categoryId);
+                inserted.add(insertedId(ps), t.getDate().toEpochDay(), t.getAmountMinor(), t.getDescription(), categoryId);
+            }
+            writer.afterCommit(() -> columns.insertAll(inserted));
+            return null;
+        });
+    }
+    private static int insertedId(PreparedStatement insert) throws SQLException {
+        try (ResultSet rs = insert.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+    private static void bindInsert(PreparedStatement ps, Transaction t, int categoryId) throws SQLException {
+        ps.setLong(1, t.getDate().toEpochDay());
+        ps.setLong(2, t.getAmountMinor());
+        ps.setString(3, t.getDescription());
+        ps.setInt(4, categoryId);
+        ps.setInt(5, yearMonthKey(t.getDate()));
+    }
+    // --- STREAMING ---
+    // Rows are handed to the consumer straight off the open cursor, so memory stays flat however long the history is.
+    // The pooled connection is held until the consumer has seen the last row.
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    public void forEachTransaction(Consumer<TransactionRecord> action) throws SQLException {
+        forEachTransaction(DEFAULT_FETCH_SIZE, action);
+    }
+    public void forEachTransaction(int fetchSize, Consumer<TransactionRecord> action) throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            forEachRecordOfHistory(conn, fetchSize, action);
+        }
+    }
+    private void forEachRecordOfHistory(PooledConnection conn, int fetchSize, Consumer<TransactionRecord> action) throws SQLException {
+        forEachRowOfHistory(conn, "id, timestamp, amount, description, category_id", false, fetchSize, rs ->
+                action.accept(new TransactionRecord(rs.getInt("id"), rs.getLong("timestamp"), rs.getLong("amount"), rs.getString("description"), categories.nameOf(conn, rs.getInt("category_id")))));
+    }
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+    /**
+     * Streams the selected columns of every transaction, live and archived, in (timestamp, id) order.
+     * History is read one calendar year at a time: a year with an archive is attached and read as a
+     * UNION ALL of its archived rows and any live rows from that year, so the order holds across both.
+     */
+    private void forEachRowOfHistory(PooledConnection conn, String columnList, boolean oldestFirst, int fetchSize, RowHandler handler) throws SQLException {
+        String order = oldestFirst ? " ORDER BY timestamp, id" : " ORDER BY timestamp DESC, id DESC";
+        String live = "SELECT " + columnList + " FROM main.transactions WHERE timestamp >= ? AND timestamp < ?";
+        List<Integer> years = transactionYears(conn);
+        if (!oldestFirst) Collections.reverse(years);
+        for (int year : years) {
+            long from = LocalDate.of(year, 1, 1).toEpochDay();
+            long to = LocalDate.of(year + 1, 1, 1).toEpochDay();
+            if (!archive.has(year)) {
+                PreparedStatement ps = conn.prepare(live + order);
+                streamRange(ps, from, to, fetchSize, handler);
+                continue;
+            }
+            archive.withAttached(conn, year, schema -> {
+                try (PreparedStatement ps = conn.raw().prepareStatement(live + " UNION ALL SELECT " + columnList + " FROM " + schema + ".transactions" + order)) {
+                    streamRange(ps, from, to, fetchSize, handler);
+                }
+                return null;
+            });
         }
     }
-    public List<Transaction> getAll() throws SQLException {
+    private static void streamRange(PreparedStatement ps, long fromDay, long toDay, int fetchSize, RowHandler handler) throws SQLException {
+        ps.setLong(1, fromDay);
+        ps.setLong(2, toDay);
+        ps.setFetchSize(fetchSize);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) handler.accept(rs);
+        }
+    }
+    public List<Transaction> getRecentTransactions(int limit) throws SQLException {
         List<Transaction> list = new ArrayList<>();
-        String sql = "SELECT * FROM transactions ORDER BY timestamp DESC, id DESC";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(new Transaction(rs.getInt("id"), LocalDate.ofEpochDay(rs.getLong("timestamp")), rs.getDouble("amount"), rs.getString("description"), rs.getString("category")));
+        TransactionColumns snapshot = columns();
+        try (PooledConnection conn = Database.borrow()) {
+            snapshot.forEachNewest(limit, (id, epochDay, amountMinor, description, categoryId) ->
+                    list.add(new Transaction(id, LocalDate.ofEpochDay(epochDay), Money.toMajor(amountMinor), description, categories.nameOf(conn, categoryId))));
+        }
+        return list;
+    }
+
+    // --- KEYSET PAGINATION ---
+    /**
+     * Returns up to {@code limit} transactions ordered newest first, starting strictly after the
+     * (timestamp, id) of the last row of the previous page. Pass nulls for the first page.
+     * Seeking on the (timestamp, id) index keeps every page as cheap as the first, unlike OFFSET.
+     */
+    public List<Transaction> getPage(Long afterTimestamp, Integer afterId, int limit, TransactionFilter filter) throws SQLException {
+        List<Transaction> list = new ArrayList<>();
+        try (PooledConnection conn = Database.borrow()) {
+            List<Object> params = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("SELECT id, timestamp, amount, description, category_id FROM transactions WHERE 1=1");
+            if (!appendFilter(conn, sql, params, filter)) return list;
+            if (afterTimestamp != null && afterId != null) {
+                sql.append(" AND (timestamp, id) < (?, ?)");
+                params.add(afterTimestamp);
+                params.add(afterId);
+            }
+            sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+            params.add(limit);
+
+            PreparedStatement ps = conn.prepare(sql.toString());
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new Transaction(rs.getInt("id"), LocalDate.ofEpochDay(rs.getLong("timestamp")), Money.toMajor(rs.getLong("amount")), rs.getString("description"), categories.nameOf(conn, rs.getInt("category_id"))));
+                }
             }
         }
         return list;
     }
-    public List<Transaction> getRecentTransactions(int limit) throws SQLException {
+    public int countTransactions(TransactionFilter filter) throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            List<Object> params = new ArrayList<>();
+            StringBuilder sql;
+            if (filter.hasDateRange()) {
+                sql = new StringBuilder("SELECT COUNT(*) FROM transactions WHERE 1=1");
+            } else {
+                // Without a date range the rollup already holds the counts
+                sql = new StringBuilder("SELECT COALESCE(SUM(txn_count), 0) FROM monthly_category_totals WHERE 1=1");
+            }
+            if (!appendFilter(conn, sql, params, filter)) return 0;
+            PreparedStatement ps = conn.prepare(sql.toString());
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    // --- FULL-TEXT SEARCH ---
+    /**
+     * Ranked search over descriptions using the transactions_fts index. Every word of the query must match
+     * the start of a word in the description, so "gro sup" finds "Grocery supplies". Best matches (bm25) first.
+     */
+    public List<Transaction> search(String query, TransactionFilter filter, int limit) throws SQLException {
         List<Transaction> list = new ArrayList<>();
-        String sql = "SELECT * FROM transactions ORDER BY timestamp DESC, id DESC LIMIT ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, limit);
+        String match = toFtsQuery(query);
+        if (match == null) return list;
+        try (PooledConnection conn = Database.borrow()) {
+            List<Object> params = new ArrayList<>();
+            params.add(match);
+            StringBuilder sql = new StringBuilder("SELECT t.id, t.timestamp, t.amount, t.description, t.category_id " +
+                    "FROM transactions_fts JOIN transactions t ON t.id = transactions_fts.rowid WHERE transactions_fts MATCH ?");
+            if (!appendFilter(conn, sql, params, filter)) return list;
+            sql.append(" ORDER BY transactions_fts.rank, t.timestamp DESC LIMIT ?");
+            params.add(limit);
+
+            PreparedStatement ps = conn.prepare(sql.toString());
+            bind(ps, params);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    list.add(new Transaction(rs.getInt("id"), LocalDate.ofEpochDay(rs.getLong("timestamp")), rs.getDouble("amount"), rs.getString("description"), rs.getString("category")));
+                    list.add(new Transaction(rs.getInt("id"), LocalDate.ofEpochDay(rs.getLong("timestamp")), Money.toMajor(rs.getLong("amount")), rs.getString("description"), categories.nameOf(conn, rs.getInt("category_id"))));
                 }
             }
         }
         return list;
     }
-    public void updateTransaction(Transaction t) throws SQLException {
-        String sql = "UPDATE transactions SET timestamp=?, amount=?, description=?, category=? WHERE id=?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+    /**
+     * Turns free text into an FTS5 query: each word becomes a quoted prefix term, so characters such as
+     * '-', '*' or ':' are searched for literally instead of being parsed as FTS operators.
+     * Returns null when there is nothing to search for.
+     */
+    static String toFtsQuery(String text) {
+        if (text == null) return null;
+        StringBuilder query = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (term.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(term).append("\"*");
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+    /** Years with transactions, live or archived, oldest first. */
+    public List<Integer> getTransactionYears() throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            return transactionYears(conn);
+        }
+    }
+    // On the caller's connection: borrowing a second one while holding the first can starve the pool
+    private List<Integer> transactionYears(PooledConnection conn) throws SQLException {
+        TreeSet<Integer> years = new TreeSet<>(archive.years());
+        String sql = "SELECT DISTINCT year_month / 100 AS year FROM monthly_category_totals ORDER BY year";
+        try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+            while (rs.next()) years.add(rs.getInt("year"));
+        }
+        return new ArrayList<>(years);
+    }
+    /** Appends the filter's conditions. Returns false when nothing can match (an unknown category). */
+    private boolean appendFilter(PooledConnection conn, StringBuilder sql, List<Object> params, TransactionFilter filter) throws SQLException {
+        if (filter.getCategory() != null) {
+            Integer categoryId = categories.idOf(conn, filter.getCategory());
+            if (categoryId == null) return false;
+            sql.append(" AND category_id = ?");
+            params.add(categoryId);
+        }
+        if (filter.getFromDate() != null) {
+            sql.append(" AND timestamp >= ?");
+            params.add(filter.getFromDate().toEpochDay());
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" AND timestamp <= ?");
+            params.add(filter.getToDate().toEpochDay());
+        }
+        return true;
+    }
+    private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    public Transaction updateTransaction(Transaction t) throws SQLException {
+        String sql = "UPDATE transactions SET timestamp=?, amount=?, description=?, category_id=?, year_month=? WHERE id=?";
+        return writer.execute(conn -> {
+            // Read in the same write, so nothing can change the row between the two statements
+            PreparedStatement ps = conn.prepare("SELECT timestamp, amount, description, category_id FROM transactions WHERE id=?");
+            ps.setInt(1, t.getId());
+            Transaction previous;
+            try (ResultSet rs = ps.executeQuery()) {
+                // A row deleted in the meantime must not come back in the column store
+                if (!rs.next()) return null;
+                previous = toTransaction(conn, t.getId(), rs);
+            }
+            int categoryId = categories.idFor(conn, t.getCategory());
+            ps = conn.prepare(sql);
             ps.setLong(1, t.getDate().toEpochDay());
-            ps.setDouble(2, t.getAmount());
+            ps.setLong(2, t.getAmountMinor());
             ps.setString(3, t.getDescription());
-            ps.setString(4, t.getCategory());
-            ps.setInt(5, t.getId());
+            ps.setInt(4, categoryId);
+            ps.setInt(5, yearMonthKey(t.getDate()));
+            ps.setInt(6, t.getId());
             ps.executeUpdate();
-        }
+            long oldDay = previous.getDate().toEpochDay();
+            writer.afterCommit(() -> columns.update(t.getId(), oldDay, t.getDate().toEpochDay(), t.getAmountMinor(), t.getDescription(), categoryId));
+            return previous;
+        });
     }
-    public void deleteTransaction(int id) throws SQLException {
-        String sql = "DELETE FROM transactions WHERE id=?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+    public Transaction deleteTransaction(int id) throws SQLException {
+        String sql = "DELETE FROM transactions WHERE id=? RETURNING timestamp, amount, description, category_id";
+        return writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setInt(1, id);
-            ps.executeUpdate();
+            Transaction deleted;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                deleted = toTransaction(conn, id, rs);
+            }
+            long day = deleted.getDate().toEpochDay();
+            writer.afterCommit(() -> columns.delete(id, day));
+            return deleted;
+        });
+    }
+    /** A transaction from a (timestamp, amount, description, category_id) row. */
+    private Transaction toTransaction(PooledConnection conn, int id, ResultSet rs) throws SQLException {
+        return new Transaction(id, LocalDate.ofEpochDay(rs.getLong(1)), Money.toMajor(rs.getLong(2)), rs.getString(3), categories.nameOf(conn, rs.getInt(4)));
+    }
+    // --- BULK EDITS ---
+    // Each is one set-based statement (a few for a category move) in a single write, however many rows
+    // it touches. The affected rows come back with their dates, so the column store finds each by binary
+    // search, and with their categories, so the caller only drops the figures those rows feed into.
+    public BulkChange recategorize(List<Integer> ids, String newCategory) throws SQLException {
+        if (ids.isEmpty()) return new BulkChange();
+        String sql = "SELECT id, timestamp, category_id FROM transactions WHERE id IN (SELECT value FROM json_each(?)) AND category_id <> ?";
+        return writer.execute(conn -> {
+            int categoryId = categories.idFor(conn, newCategory);
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setString(1, toJsonArray(ids));
+            ps.setInt(2, categoryId);
+            return recategorizeRows(conn, AffectedRows.read(ps, true), categoryId, newCategory);
+        });
+    }
+    /** Moves every transaction the search query would find (within the filter) to the category. */
+    public BulkChange recategorizeMatching(String query, TransactionFilter filter, String newCategory) throws SQLException {
+        String match = toFtsQuery(query);
+        if (match == null) return new BulkChange();
+        return writer.execute(conn -> {
+            int categoryId = categories.idFor(conn, newCategory);
+            List<Object> params = new ArrayList<>();
+            params.add(match);
+            StringBuilder sql = new StringBuilder("SELECT id, timestamp, category_id FROM transactions WHERE id IN (SELECT rowid FROM transactions_fts WHERE transactions_fts MATCH ?)");
+            if (!appendFilter(conn, sql, params, filter)) return new BulkChange();
+            sql.append(" AND category_id <> ?");
+            params.add(categoryId);
+            PreparedStatement ps = conn.prepare(sql.toString());
+            bind(ps, params);
+            return recategorizeRows(conn, AffectedRows.read(ps, true), categoryId, newCategory);
+        });
+    }
+    /**
+     * Moves the selected rows to the category. RETURNING only sees the new values of an UPDATE, so the
+     * rows and their old categories are selected first, in the same write.
+     */
+    private BulkChange recategorizeRows(PooledConnection conn, AffectedRows rows, int categoryId, String newCategory) throws SQLException {
+        BulkChange changed = new BulkChange();
+        if (rows.count == 0) return changed;
+        PreparedStatement ps = conn.prepare("UPDATE transactions SET category_id = ? WHERE id IN (SELECT value FROM json_each(?))");
+        ps.setInt(1, categoryId);
+        ps.setString(2, rows.idsAsJson());
+        ps.executeUpdate();
+        for (int i = 0; i < rows.count; i++) {
+            changed.add(rows.days[i], categories.nameOf(conn, rows.categoryIds[i]), newCategory);
         }
+        writer.afterCommit(() -> columns.recategorize(rows.ids, rows.days, rows.count, categoryId));
+        return changed;
     }
-    public List<String> getAllCategories() throws SQLException {
-        List<String> categories = new ArrayList<>();
-        String sql = "SELECT DISTINCT category FROM transactions ORDER BY category";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                categories.add(rs.getString("category"));
+    /**
+     * Merges one category into another: its transactions and recurring items move over, its budget moves
+     * too unless the target already has one, and the emptied category is dropped. Archived transactions
+     * are read-only, so a category they still use is kept for them.
+     */
+    public BulkChange moveCategory(String fromCategory, String toCategory) throws SQLException {
+        if (fromCategory.equals(toCategory)) return new BulkChange();
+        Set<Integer> archivedCategoryIds = new HashSet<>(archivedCodes().values());
+        return writer.execute(conn -> {
+            Integer fromId = categories.idOf(conn, fromCategory);
+            if (fromId == null) throw new SQLException("Unknown category: " + fromCategory);
+            int toId = categories.idFor(conn, toCategory);
+            PreparedStatement ps = conn.prepare("UPDATE transactions SET category_id = ? WHERE category_id = ? RETURNING id, timestamp");
+            ps.setInt(1, toId);
+            ps.setInt(2, fromId);
+            AffectedRows moved = AffectedRows.read(ps, false);
+            for (String sql : new String[] {
+                    "UPDATE recurring_transactions SET category_id = ? WHERE category_id = ?",
+                    "UPDATE OR IGNORE budgets SET category_id = ? WHERE category_id = ?"}) {
+                ps = conn.prepare(sql);
+                ps.setInt(1, toId);
+                ps.setInt(2, fromId);
+                ps.executeUpdate();
             }
+            // Left behind only when the target already had a budget of its own
+            ps = conn.prepare("DELETE FROM budgets WHERE category_id = ?");
+            ps.setInt(1, fromId);
+            ps.executeUpdate();
+            if (!archivedCategoryIds.contains(fromId)) {
+                ps = conn.prepare("DELETE FROM categories WHERE id = ?");
+                ps.setInt(1, fromId);
+                ps.executeUpdate();
+            }
+            BulkChange changed = new BulkChange();
+            for (int i = 0; i < moved.count; i++) changed.add(moved.days[i], fromCategory, toCategory);
+            writer.afterCommit(() -> {
+                categories.invalidate();
+                columns.recategorize(moved.ids, moved.days, moved.count, toId);
+            });
+            return changed;
+        });
+    }
+    public BulkChange deleteTransactions(List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return new BulkChange();
+        String sql = "DELETE FROM transactions WHERE id IN (SELECT value FROM json_each(?)) RETURNING id, timestamp, category_id";
+        return writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setString(1, toJsonArray(ids));
+            return deletedRows(conn, AffectedRows.read(ps, true));
+        });
+    }
+    /** Deletes every transaction matching the filter. An empty filter is refused rather than emptying the table. */
+    public BulkChange deleteMatching(TransactionFilter filter) throws SQLException {
+        if (filter.getCategory() == null && !filter.hasDateRange()) {
+            throw new SQLException("Refusing to delete every transaction; give a category or a date range.");
         }
-        return categories;
+        return writer.execute(conn -> {
+            List<Object> params = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("DELETE FROM transactions WHERE 1=1");
+            if (!appendFilter(conn, sql, params, filter)) return new BulkChange();
+            sql.append(" RETURNING id, timestamp, category_id");
+            PreparedStatement ps = conn.prepare(sql.toString());
+            bind(ps, params);
+            return deletedRows(conn, AffectedRows.read(ps, true));
+        });
     }
-    public Map<String, Double> getCategoryTotalsForMonth(YearMonth yearMonth) throws SQLException {
-        Map<String, Double> map = new HashMap<>();
-        long startOfMonth = yearMonth.atDay(1).toEpochDay();
-        long endOfMonth = yearMonth.atEndOfMonth().toEpochDay();
-        String sql = "SELECT category, SUM(amount) as total FROM transactions WHERE timestamp BETWEEN ? AND ? GROUP BY category";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, startOfMonth);
-            ps.setLong(2, endOfMonth);
+    private BulkChange deletedRows(PooledConnection conn, AffectedRows rows) throws SQLException {
+        BulkChange deleted = new BulkChange();
+        for (int i = 0; i < rows.count; i++) {
+            deleted.add(rows.days[i], categories.nameOf(conn, rows.categoryIds[i]), null);
+        }
+        if (rows.count > 0) writer.afterCommit(() -> columns.deleteAll(rows.ids, rows.days, rows.count));
+        return deleted;
+    }
+    /** The (id, timestamp[, category_id]) rows a bulk edit selected or got back from RETURNING, as parallel arrays. */
+    private static final class AffectedRows {
+        int[] ids = new int[16];
+        int[] days = new int[16];
+        int[] categoryIds;
+        int count = 0;
+
+        static AffectedRows read(PreparedStatement ps, boolean withCategory) throws SQLException {
+            AffectedRows rows = new AffectedRows();
+            if (withCategory) rows.categoryIds = new int[16];
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    map.put(rs.getString("category"), rs.getDouble("total"));
+                    if (rows.count == rows.ids.length) rows.grow();
+                    rows.ids[rows.count] = rs.getInt(1);
+                    rows.days[rows.count] = (int) rs.getLong(2);
+                    if (withCategory) rows.categoryIds[rows.count] = rs.getInt(3);
+                    rows.count++;
                 }
             }
+            return rows;
         }
-        return map;
-    }
-    public double getTotalForMonth(YearMonth yearMonth) throws SQLException {
-        long startOfMonth = yearMonth.atDay(1).toEpochDay();
-        long endOfMonth = yearMonth.atEndOfMonth().toEpochDay();
-        String sql = "SELECT SUM(amount) FROM transactions WHERE timestamp BETWEEN ? AND ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, startOfMonth);
-            ps.setLong(2, endOfMonth);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getDouble(1);
+
+        private void grow() {
+            ids = Arrays.copyOf(ids, count * 2);
+            days = Arrays.copyOf(days, count * 2);
+            if (categoryIds != null) categoryIds = Arrays.copyOf(categoryIds, count * 2);
+        }
+
+        String idsAsJson() {
+            StringBuilder json = new StringBuilder(count * 7).append('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) json.append(',');
+                json.append(ids[i]);
             }
+            return json.append(']').toString();
         }
-        return 0.0;
     }
-    public double getSpentAmountForCategory(String category, YearMonth yearMonth) throws SQLException {
-        long startOfMonth = yearMonth.atDay(1).toEpochDay();
-        long endOfMonth = yearMonth.atEndOfMonth().toEpochDay();
-        String sql = "SELECT SUM(amount) as total FROM transactions WHERE category = ? AND (timestamp BETWEEN ? AND ?)";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, category);
-            ps.setLong(2, startOfMonth);
-            ps.setLong(3, endOfMonth);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getDouble("total");
+    /** The ids as one JSON array parameter, expanded in SQL by json_each; no per-id placeholders or statements. */
+    private static String toJsonArray(List<Integer> ids) {
+        StringBuilder json = new StringBuilder(ids.size() * 7).append('[');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(ids.get(i).intValue());
+        }
+        return json.append(']').toString();
+    }
+
+    // --- CATEGORIES, served from the in-process dictionary ---
+    public List<String> getAllCategories() throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            return categories.names(conn);
+        }
+    }
+    /**
+     * Renames a category everywhere at once: transactions, budgets and recurring items only hold its id.
+     * A trigger logs the rename in the change log. Fails if another category already has the new name.
+     */
+    public void renameCategory(String oldName, String newName) throws SQLException {
+        writer.execute(conn -> {
+            Integer id = categories.idOf(conn, oldName);
+            if (id == null) throw new SQLException("Unknown category: " + oldName);
+            if (categories.idOf(conn, newName) != null) throw new SQLException("Category already exists: " + newName);
+            PreparedStatement ps = conn.prepare("UPDATE categories SET name = ? WHERE id = ?");
+            ps.setString(1, newName);
+            ps.setInt(2, id);
+            ps.executeUpdate();
+            categories.renamed(id, oldName, newName);
+            return null;
+        });
+    }
+    // --- CHANGE LOG, appended by triggers on transactions and category names; see TransactionChangeLog ---
+    public long getLatestChangeSeq() throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            return TransactionChangeLog.latestSeq(conn);
+        }
+    }
+    public List<TransactionChange> getChangesSince(long afterSeq, int limit) throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            return TransactionChangeLog.since(conn, afterSeq, limit);
+        }
+    }
+    /** Runs on the writer thread outside any group, so no write lands between the seq and the rows and archives can be attached. */
+    public long forEachTransactionAsOfChange(Consumer<TransactionRecord> action) throws SQLException {
+        return writer.executeAlone(conn -> {
+            long seq = TransactionChangeLog.latestSeq(conn);
+            forEachRecordOfHistory(conn, DEFAULT_FETCH_SIZE, action);
+            return seq;
+        });
+    }
+    public void acknowledgeChanges(String consumer, long seq) throws SQLException {
+        writer.execute(conn -> {
+            TransactionChangeLog.acknowledge(conn, consumer, seq);
+            return null;
+        });
+    }
+    public byte[] getChangeConsumerState(String consumer) throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            return TransactionChangeLog.state(conn, consumer);
+        }
+    }
+    public void saveChangeConsumerState(String consumer, long seq, byte[] state) throws SQLException {
+        writer.execute(conn -> {
+            TransactionChangeLog.saveState(conn, consumer, seq, state);
+            return null;
+        });
+    }
+    public int compactChanges() throws SQLException {
+        return writer.execute(TransactionChangeLog::compact);
+    }
+    // --- ARCHIVAL ---
+    /**
+     * Moves transactions dated before the cutoff out of the live table into per-year archive files.
+     * Archived transactions still count in yearly and monthly totals, averages, exports and training,
+     * but no longer appear in the transaction list or search and can't be edited.
+     * Returns the number of transactions moved.
+     */
+    public int archiveBefore(LocalDate cutoff) throws SQLException {
+        if (cutoff.isAfter(YearMonth.now().minusMonths(MIN_LIVE_MONTHS).atDay(1))) {
+            throw new SQLException("At least the last " + MIN_LIVE_MONTHS + " months must stay live; can't archive up to " + cutoff);
+        }
+        // ATTACH is refused inside a transaction, so this runs on the writer thread without a group around it
+        return writer.executeAlone(conn -> {
+            int moved = archive.moveBefore(conn, cutoff);
+            if (moved > 0) columns.invalidate();
+            return moved;
+        });
+    }
+
+    // --- MONTHLY AGGREGATES, served from the in-memory columns ---
+    // Totals are exact integer sums in paise; averages are converted to rupees.
+    public Map<String, Long> getCategoryTotalsForMonth(YearMonth yearMonth) throws SQLException {
+        Map<String, Long> map = new HashMap<>();
+        long[] totals = columns().categoryTotals(firstDay(yearMonth), firstDay(yearMonth.plusMonths(1)));
+        TransactionArchive.YearTotals archived = archivedTotals(yearMonth.getYear());
+        long[] archivedTotals = archived == null ? new long[0] : archived.totals[yearMonth.getMonthValue() - 1];
+        try (PooledConnection conn = Database.borrow()) {
+            for (int c = 0; c < Math.max(totals.length, archivedTotals.length); c++) {
+                long total = (c < totals.length ? totals[c] : 0) + (c < archivedTotals.length ? archivedTotals[c] : 0);
+                if (total != 0) map.put(categories.nameOf(conn, c), total);
             }
         }
-        return 0.0;
+        return map;
+    }
+    public long getTotalForMonth(YearMonth yearMonth) throws SQLException {
+        long total = columns().total(firstDay(yearMonth), firstDay(yearMonth.plusMonths(1)));
+        TransactionArchive.YearTotals archived = archivedTotals(yearMonth.getYear());
+        return archived == null ? total : total + archived.monthTotal(yearMonth.getMonthValue());
+    }
+    public long getSpentAmountForCategory(String category, YearMonth yearMonth) throws SQLException {
+        Integer categoryId;
+        try (PooledConnection conn = Database.borrow()) {
+            categoryId = categories.idOf(conn, category);
+        }
+        if (categoryId == null) return 0;
+        long total = columns().categoryTotal(categoryId, firstDay(yearMonth), firstDay(yearMonth.plusMonths(1)));
+        TransactionArchive.YearTotals archived = archivedTotals(yearMonth.getYear());
+        if (archived != null) {
+            long[] monthTotals = archived.totals[yearMonth.getMonthValue() - 1];
+            if (categoryId < monthTotals.length) total += monthTotals[categoryId];
+        }
+        return total;
     }
     public Map<String, Double> getAverageMonthlySpendingPerCategory() throws SQLException {
         Map<String, Double> averages = new HashMap<>();
-        long sixMonthsAgo = LocalDate.now().minusMonths(6).toEpochDay();
-        String sql = "SELECT category, AVG(monthly_total) as avg_spend FROM ( SELECT category, strftime('%Y-%m', timestamp, 'unixepoch') as month, SUM(amount) as monthly_total FROM transactions WHERE timestamp >= ? GROUP BY category, month) GROUP BY category";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, sixMonthsAgo);
-            try (ResultSet rs = ps.executeQuery()) {
-                while(rs.next()) averages.put(rs.getString("category"), rs.getDouble("avg_spend"));
+        // Averages over the months that had spending, from six months ago up to the current month
+        long from = firstDay(YearMonth.now().minusMonths(6));
+        TransactionColumns snapshot = columns();
+        long[] totals = snapshot.categoryTotals(from, Long.MAX_VALUE);
+        int[] months = snapshot.activeMonths(from);
+        try (PooledConnection conn = Database.borrow()) {
+            for (int c = 0; c < months.length; c++) {
+                if (months[c] > 0) averages.put(categories.nameOf(conn, c), Money.toMajor(totals[c]) / months[c]);
             }
         }
         return averages;
     }
+    /** Cached totals of the year's archive, or null when none of that year has been archived. */
+    private TransactionArchive.YearTotals archivedTotals(int year) throws SQLException {
+        if (!archive.has(year)) return null;
+        try (PooledConnection conn = Database.borrow()) {
+            return archive.totals(conn, year);
+        }
+    }
+    private static long firstDay(YearMonth yearMonth) {
+        return yearMonth.atDay(1).toEpochDay();
+    }
+    /**
+     * The loaded column store. The first call loads it on the writer thread between groups, so no write
+     * can commit between the load and the hooks that keep it current, and the writer's own connection
+     * (no second one borrowed) sees exactly the committed rows.
+     */
+    private TransactionColumns columns() throws SQLException {
+        if (!columns.isLoaded()) {
+            writer.executeAlone(conn -> {
+                if (!columns.isLoaded()) columns.load(conn);
+                return null;
+            });
+        }
+        return columns;
+    }
     public List<Budget> getAllBudgets() throws SQLException {
         List<Budget> list = new ArrayList<>();
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT * FROM budgets")) {
-            while (rs.next()) list.add(new Budget(rs.getInt("id"), rs.getString("category"), rs.getDouble("monthly_limit"), rs.getString("last_alerted_month")));
+        try (PooledConnection conn = Database.borrow(); ResultSet rs = conn.prepare("SELECT * FROM budgets").executeQuery()) {
+            while (rs.next()) list.add(new Budget(rs.getInt("id"), categories.nameOf(conn, rs.getInt("category_id")), Money.toMajor(rs.getLong("monthly_limit")), rs.getString("last_alerted_month")));
         }
         return list;
     }
     public Budget getBudgetByCategory(String category) throws SQLException {
-        String sql = "SELECT * FROM budgets WHERE category = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, category);
+        String sql = "SELECT * FROM budgets WHERE category_id = ?";
+        try (PooledConnection conn = Database.borrow()) {
+            Integer categoryId = categories.idOf(conn, category);
+            if (categoryId == null) return null;
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setInt(1, categoryId);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return new Budget(rs.getInt("id"), rs.getString("category"), rs.getDouble("monthly_limit"), rs.getString("last_alerted_month"));
+                if (rs.next()) return new Budget(rs.getInt("id"), category, Money.toMajor(rs.getLong("monthly_limit")), rs.getString("last_alerted_month"));
             }
         }
         return null;
     }
     public void updateBudgetAlertMonth(int budgetId, String yearMonth) throws SQLException {
         String sql = "UPDATE budgets SET last_alerted_month = ? WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setString(1, yearMonth);
             ps.setInt(2, budgetId);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public void addBudget(Budget b) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO budgets(category, monthly_limit) VALUES(?,?)";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, b.getCategory());
-            ps.setDouble(2, b.getMonthlyLimit());
+        String sql = "INSERT OR IGNORE INTO budgets(category_id, monthly_limit) VALUES(?,?)";
+        writer.execute(conn -> {
+            int categoryId = categories.idFor(conn, b.getCategory());
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setInt(1, categoryId);
+            ps.setLong(2, b.getMonthlyLimitMinor());
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public void updateBudget(Budget b) throws SQLException {
         String sql = "UPDATE budgets SET monthly_limit = ? WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, b.getMonthlyLimit());
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
+            ps.setLong(1, b.getMonthlyLimitMinor());
             ps.setInt(2, b.getId());
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
     public void deleteBudget(int id) throws SQLException {
         String sql = "DELETE FROM budgets WHERE id=?";
-        try (Connection conn = Database.connect(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        writer.execute(conn -> {
+            PreparedStatement ps = conn.prepare(sql);
             ps.setInt(1, id);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
-    public List<TransactionData> getTransactionDataForRegression() throws SQLException {
-        List<TransactionData> data = new ArrayList<>();
-        String sql = "WITH CategoryMap AS ( SELECT DISTINCT category, ROW_NUMBER() OVER () - 1 as categoryCode FROM transactions) SELECT t.timestamp, t.amount, cm.categoryCode FROM transactions t JOIN CategoryMap cm ON t.category = cm.category ORDER BY t.timestamp;";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
+    /** Training rows, oldest first. The category code is the category's stable id. */
+    public void forEachTransactionData(Consumer<TransactionData> action) throws SQLException {
+        try (PooledConnection conn = Database.borrow()) {
+            forEachRowOfHistory(conn, "id, timestamp, amount, category_id", true, DEFAULT_FETCH_SIZE, rs -> {
                 LocalDate transactionDate = LocalDate.ofEpochDay(rs.getLong("timestamp"));
-                data.add(new TransactionData(transactionDate.getDayOfWeek().getValue(), transactionDate.getDayOfMonth(), transactionDate.getMonthValue(), rs.getDouble("amount"), rs.getInt("categoryCode")));
-            }
+                action.accept(new TransactionData(transactionDate.getDayOfWeek().getValue(), transactionDate.getDayOfMonth(), transactionDate.getMonthValue(), Money.toMajor(rs.getLong("amount")), rs.getInt("category_id")));
+            });
         }
-        return data;
     }
+    /** Category name to the code used by {@link #forEachTransactionData}, for categories that have transactions. */
     public Map<String, Integer> getCategoryCodeMap() throws SQLException {
         Map<String, Integer> map = new HashMap<>();
-        String sql = "SELECT DISTINCT category, ROW_NUMBER() OVER () - 1 as categoryCode FROM transactions;";
-        try (Connection conn = Database.connect(); Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) map.put(rs.getString("category"), rs.getInt("categoryCode"));
+        String sql = "SELECT DISTINCT category_id FROM monthly_category_totals";
+        try (PooledConnection conn = Database.borrow()) {
+            try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                while (rs.next()) map.put(categories.nameOf(conn, rs.getInt("category_id")), rs.getInt("category_id"));
+            }
+        }
+        map.putAll(archivedCodes());
+        return map;
+    }
+    /** Category name to id for every category that archived transactions use. */
+    private Map<String, Integer> archivedCodes() throws SQLException {
+        Map<String, Integer> map = new HashMap<>();
+        try (PooledConnection conn = Database.borrow()) {
+            for (int year : archive.years()) {
+                TransactionArchive.YearTotals archived = archive.totals(conn, year);
+                for (int[] monthCounts : archived.counts) {
+                    for (int c = 0; c < monthCounts.length; c++) {
+                        if (monthCounts[c] > 0) map.put(categories.nameOf(conn, c), c);
+                    }
+                }
+            }
         }
         return map;
     }
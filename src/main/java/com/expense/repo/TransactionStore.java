@@ -0,0 +1,187 @@
+// File: src/main/java/com/expense/repo/TransactionStore.java
+
+package com.expense.repo;
+
+import com.expense.db.Database;
+import com.expense.model.Budget;
+import com.expense.model.BulkChange;
+import com.expense.model.RecurringTransaction;
+import com.expense.model.SavingsGoal;
+import com.expense.model.Transaction;
+import com.expense.model.TransactionChange;
+import com.expense.model.TransactionData;
+import com.expense.model.TransactionFilter;
+import com.expense.model.TransactionRecord;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Everything the service layer reads and writes: transactions, categories, budgets, recurring items
+ * and savings goals. Amounts cross this interface in paise where they are summed, as rupees on the models.
+ * Pick an implementation with {@link Kind}; all of them behave the same apart from where the data lives.
+ */
+public interface TransactionStore {
+
+    /** Where the data lives. Chosen with -Dexpense.store=sqlite|sqlite-memory|memory. */
+    enum Kind {
+        // The expenses.db file (or whatever -Dexpense.db.url points at)
+        SQLITE,
+        // The same SQLite schema and code paths, in a shared-cache in-memory database that is gone on exit
+        SQLITE_MEMORY,
+        // Plain Java collections; no SQLite at all, so no backups, archival or ranked search
+        MEMORY;
+
+        public static Kind configured() {
+            return fromName(System.getProperty("expense.store"), SQLITE);
+        }
+
+        /** Parses a name such as "sqlite" or "sqlite-memory". A missing or unknown name gives the fallback, silently. */
+        public static Kind fromName(String name, Kind fallback) {
+            if (name == null || name.isBlank()) return fallback;
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return fallback;
+            }
+        }
+
+        /** True when the store is a SQLite database reachable through {@link Database}. */
+        public boolean usesDatabase() {
+            return this != MEMORY;
+        }
+    }
+
+    /** Opens a store of the given kind. Both SQLite kinds share the process-wide {@link Database} pool. */
+    static TransactionStore open(Kind kind) {
+        switch (kind) {
+            case MEMORY:
+                return new InMemoryTransactionStore();
+            case SQLITE_MEMORY:
+                Database.useInMemoryDatabase();
+                return new TransactionRepository();
+            default:
+                return new TransactionRepository();
+        }
+    }
+
+    /** Creates or migrates the schema and drops anything cached from before. */
+    void init() throws SQLException;
+
+    // --- TRANSACTIONS ---
+    void insert(Transaction t) throws SQLException;
+    /** Inserts all rows at once; either every row is stored or none is. */
+    void insertAll(List<Transaction> transactions) throws SQLException;
+    /** Saves the edited transaction and returns it as it was before, or null (and changes nothing) if it no longer exists. */
+    Transaction updateTransaction(Transaction t) throws SQLException;
+    /** Returns the deleted transaction, or null if there was none with the id. */
+    Transaction deleteTransaction(int id) throws SQLException;
+    /** Every transaction, newest first, handed over one at a time. */
+    void forEachTransaction(Consumer<TransactionRecord> action) throws SQLException;
+    /** Training rows, oldest first. The category code is the category's stable id. */
+    void forEachTransactionData(Consumer<TransactionData> action) throws SQLException;
+    List<Transaction> getRecentTransactions(int limit) throws SQLException;
+    /**
+     * Up to {@code limit} transactions, newest first, strictly after the (timestamp, id) of the last
+     * row of the previous page. Pass nulls for the first page.
+     */
+    List<Transaction> getPage(Long afterTimestamp, Integer afterId, int limit, TransactionFilter filter) throws SQLException;
+    int countTransactions(TransactionFilter filter) throws SQLException;
+    /** Transactions whose description has a word starting with each word of the query, best matches first where the store can rank them. */
+    List<Transaction> search(String query, TransactionFilter filter, int limit) throws SQLException;
+    /** Years with transactions, oldest first. */
+    List<Integer> getTransactionYears() throws SQLException;
+
+    // --- BULK EDITS: one operation however many rows; each returns which transactions it changed, and where they were ---
+    BulkChange recategorize(List<Integer> ids, String newCategory) throws SQLException;
+    /** Moves every transaction {@link #search} would find for the query (within the filter) to the category. */
+    BulkChange recategorizeMatching(String query, TransactionFilter filter, String newCategory) throws SQLException;
+    /** Merges a category into another, along with its recurring items and (if the target has none) its budget. */
+    BulkChange moveCategory(String fromCategory, String toCategory) throws SQLException;
+    BulkChange deleteTransactions(List<Integer> ids) throws SQLException;
+    /** Deletes every transaction matching the filter; a filter without a category or date range is refused. */
+    BulkChange deleteMatching(TransactionFilter filter) throws SQLException;
+
+    // --- CHANGE LOG: every change to a transaction, and every category rename, in commit order, so derived data can be kept up to date ---
+    /** Seq of the newest change logged, 0 before the first. */
+    long getLatestChangeSeq() throws SQLException;
+    /**
+     * Up to {@code limit} changes after the seq, oldest first. Throws {@link ChangeLogGapException} when
+     * some of them are no longer in the log, in which case the consumer starts over from a snapshot.
+     */
+    List<TransactionChange> getChangesSince(long afterSeq, int limit) throws SQLException;
+    /**
+     * Streams every transaction, newest first like {@link #forEachTransaction}, and returns the seq of
+     * the newest change the rows include: the consumer continues with {@link #getChangesSince} from there.
+     * No write runs until it returns, so the action should only collect.
+     */
+    long forEachTransactionAsOfChange(Consumer<TransactionRecord> action) throws SQLException;
+    /**
+     * Records that the named consumer has applied every change up to the seq. Until it first does,
+     * compaction doesn't wait for it, so a new consumer acknowledges its snapshot's seq straight away.
+     */
+    void acknowledgeChanges(String consumer, long seq) throws SQLException;
+    /**
+     * What the consumer last saved with {@link #saveChangeConsumerState}, or null. It travels with the
+     * data, so a restored backup brings back the state that matches it.
+     */
+    byte[] getChangeConsumerState(String consumer) throws SQLException;
+    /** Acknowledges the seq as {@link #acknowledgeChanges} does and saves the consumer's state as of it, in one write. */
+    void saveChangeConsumerState(String consumer, long seq, byte[] state) throws SQLException;
+    /** Deletes the changes every consumer has acknowledged (all of them when there is none); returns how many. */
+    int compactChanges() throws SQLException;
+
+    /**
+     * Moves transactions dated before the cutoff out of the live set into cold storage, where they still
+     * count in totals and exports. Returns the number moved.
+     */
+    int archiveBefore(LocalDate cutoff) throws SQLException;
+
+    // --- AGGREGATES, in paise unless noted ---
+    /** Spending per month of the year, keyed 'YYYY-MM'; months without spending are left out. */
+    Map<String, Long> getMonthlyTotalsForYear(int year) throws SQLException;
+    Map<String, Long> getCategoryTotalsForMonth(YearMonth yearMonth) throws SQLException;
+    long getTotalForMonth(YearMonth yearMonth) throws SQLException;
+    long getSpentAmountForCategory(String category, YearMonth yearMonth) throws SQLException;
+    /** Average transaction amount per category over all time, in rupees. */
+    Map<String, Double> getCategoryAverageSpending() throws SQLException;
+    /** Average monthly spending per category over the months that had spending in the last six, in rupees. */
+    Map<String, Double> getAverageMonthlySpendingPerCategory() throws SQLException;
+    /** Category name to the code used by {@link #forEachTransactionData}, for categories that have transactions. */
+    Map<String, Integer> getCategoryCodeMap() throws SQLException;
+
+    // --- CATEGORIES ---
+    List<String> getAllCategories() throws SQLException;
+    /** Renames a category everywhere at once. Fails if another category already has the new name. */
+    void renameCategory(String oldName, String newName) throws SQLException;
+
+    // --- BUDGETS ---
+    List<Budget> getAllBudgets() throws SQLException;
+    Budget getBudgetByCategory(String category) throws SQLException;
+    void updateBudgetAlertMonth(int budgetId, String yearMonth) throws SQLException;
+    /** Adds a budget unless the category already has one. */
+    void addBudget(Budget b) throws SQLException;
+    void updateBudget(Budget b) throws SQLException;
+    void deleteBudget(int id) throws SQLException;
+
+    // --- RECURRING TRANSACTIONS ---
+    List<RecurringTransaction> getAllRecurringTransactions() throws SQLException;
+    void addRecurringTransaction(RecurringTransaction rt) throws SQLException;
+    void deleteRecurringTransaction(int id) throws SQLException;
+    List<RecurringTransaction> getDueRecurringTransactions(long currentTimestamp) throws SQLException;
+    void updateRecurringTransactionDueDate(int id, long newDueDateTimestamp) throws SQLException;
+    /** Queues the update without waiting; the future completes once it has been stored. */
+    CompletableFuture<Void> submitRecurringTransactionDueDate(int id, long newDueDateTimestamp);
+
+    // --- SAVINGS GOALS ---
+    void addSavingsGoal(SavingsGoal goal) throws SQLException;
+    List<SavingsGoal> getAllSavingsGoals() throws SQLException;
+    SavingsGoal getSavingsGoalById(int goalId) throws SQLException;
+    void updateSavingsGoalAmount(int goalId, long newAmountMinor) throws SQLException;
+    void deleteSavingsGoal(int goalId) throws SQLException;
+}
@@ -0,0 +1,118 @@
+// File: src/main/java/com/expense/service/AggregateCache.java
+
+package com.expense.service;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of aggregate query results, least recently used evicted first.
+ * Each entry's key says which month, year and category its result covers (null for all), so a change
+ * to one transaction drops only the entries that could include it; everything else stays warm.
+ * Cached values are shared between callers and must not be modified.
+ */
+final class AggregateCache {
+
+    @FunctionalInterface
+    interface Loader<V> {
+        V load() throws SQLException;
+    }
+
+    /** A query and its parameters. A null month, year or category means the result covers all of them. */
+    static final class Key {
+        final String query;
+        final YearMonth month;
+        final Integer year;
+        final String category;
+
+        private Key(String query, YearMonth month, Integer year, String category) {
+            this.query = query;
+            this.month = month;
+            this.year = month != null ? Integer.valueOf(month.getYear()) : year;
+            this.category = category;
+        }
+
+        static Key ofMonth(String query, YearMonth month) { return new Key(query, month, null, null); }
+        static Key ofMonth(String query, YearMonth month, String category) { return new Key(query, month, null, category); }
+        static Key ofYear(String query, int year) { return new Key(query, null, year, null); }
+        static Key ofAll(String query) { return new Key(query, null, null, null); }
+
+        /** True if a transaction in this month and category can change the result. */
+        boolean covers(YearMonth changedMonth, String changedCategory) {
+            return (month == null || month.equals(changedMonth))
+                    && (year == null || year == changedMonth.getYear())
+                    && (category == null || category.equals(changedCategory));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return query.equals(k.query) && Objects.equals(month, k.month) && Objects.equals(year, k.year) && Objects.equals(category, k.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, month, year, category);
+        }
+    }
+
+    private final LinkedHashMap<Key, Object> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // Bumped by every invalidation; a result loaded across one may be stale and is not kept
+    private long generation = 0;
+
+    AggregateCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(maxEntries * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** The cached result for the key, or the loader's, which is kept unless the data changed while it ran. */
+    @SuppressWarnings("unchecked")
+    <V> V get(Key key, Loader<V> loader) throws SQLException {
+        long loadedAt;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (V) cached;
+            }
+            loadedAt = generation;
+        }
+        misses.incrementAndGet();
+        // Loaded outside the lock, so one slow query doesn't hold up hits on other keys
+        V value = loader.load();
+        synchronized (this) {
+            if (generation == loadedAt && value != null) entries.put(key, value);
+        }
+        return value;
+    }
+
+    /** Drops every entry a transaction in this month and category contributes to. */
+    synchronized void invalidate(YearMonth month, String category) {
+        generation++;
+        for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().covers(month, category)) it.remove();
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    long hits() { return hits.get(); }
+    long misses() { return misses.get(); }
+    synchronized int size() { return entries.size(); }
+}
@@ -0,0 +1,17 @@
+// File: src/main/java/com/expense/service/AnomalyDetector.java
+
+package com.expense.service;
+
+/**
+ * Decides whether an amount is out of line for its category. Checks run on the UI thread while a
+ * transaction is being saved, so an implementation answers from memory and never queries.
+ */
+interface AnomalyDetector {
+
+    /** How far out of line the amount (in paise) is: 0 for ordinary, 1 or more for anomalous. */
+    double score(String category, long amountMinor);
+
+    default boolean isAnomalous(String category, long amountMinor) {
+        return score(category, amountMinor) >= 1;
+    }
+}
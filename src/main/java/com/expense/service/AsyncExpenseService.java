@@ -0,0 +1,68 @@
+// File: src/main/java/com/expense/service/AsyncExpenseService.java
+
+package com.expense.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link ExpenseService} calls off the calling thread and returns {@link CompletableFuture}s,
+ * so the JavaFX Application Thread never blocks on JDBC.
+ * Each call gets its own task on a shared, growable pool of daemon threads; how many of them touch
+ * SQLite at once is still bounded by the connection pool in {@code Database}.
+ */
+public class AsyncExpenseService {
+
+    @FunctionalInterface
+    public interface ServiceCall<T> {
+        T call(ExpenseService service) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ServiceAction {
+        void run(ExpenseService service) throws Exception;
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "expense-async-" + count.incrementAndGet());
+            t.setDaemon(true); // never keeps the JVM alive after the window closes
+            return t;
+        }
+    });
+
+    private final ExpenseService service;
+
+    public AsyncExpenseService(ExpenseService service) {
+        this.service = service;
+    }
+
+    /** The wrapped service, for callers that are already off the UI thread. */
+    public ExpenseService sync() {
+        return service;
+    }
+
+    public <T> CompletableFuture<T> supply(ServiceCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call(service);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    public CompletableFuture<Void> run(ServiceAction action) {
+        return supply(s -> {
+            action.run(s);
+            return null;
+        });
+    }
+}
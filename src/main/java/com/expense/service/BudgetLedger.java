@@ -0,0 +1,118 @@
+// File: src/main/java/com/expense/service/BudgetLedger.java
+
+package com.expense.service;
+
+import com.expense.model.Budget;
+import com.expense.model.TransactionRecord;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Every budget with what has been spent in its category this month, held in memory so budget checks
+ * and the Budget Manager never query. Spending is fed by {@link TransactionFeed} for the month the
+ * ledger was loaded in and every later one (future-dated transactions included), so when the calendar
+ * moves on, the new month's figures are already there and the old month is simply dropped.
+ */
+final class BudgetLedger implements TransactionFeed.Listener {
+    private final Map<String, Budget> budgets = new HashMap<>();
+    // Paise per category, per month from firstMonth on
+    private final TreeMap<YearMonth, Map<String, Long>> spentByMonth = new TreeMap<>();
+    private YearMonth firstMonth = YearMonth.now();
+
+    /** Replaces the budgets; they change rarely, so they are simply reloaded after each budget write. */
+    synchronized void setBudgets(List<Budget> all) {
+        budgets.clear();
+        for (Budget b : all) budgets.put(b.getCategory(), b);
+    }
+
+    @Override
+    public synchronized void reset() {
+        spentByMonth.clear();
+        firstMonth = YearMonth.now();
+    }
+
+    @Override
+    public synchronized void apply(TransactionRecord r, int sign) {
+        YearMonth month = YearMonth.from(r.getDate());
+        if (month.isBefore(firstMonth)) return;
+        Map<String, Long> spent = spentByMonth.computeIfAbsent(month, m -> new HashMap<>());
+        spent.merge(r.category, sign * r.amountMinor, Long::sum);
+        if (spent.get(r.category) == 0) spent.remove(r.category);
+    }
+
+    @Override
+    public synchronized void renamed(String oldName, String newName) {
+        for (Map<String, Long> spent : spentByMonth.values()) {
+            Long moved = spent.remove(oldName);
+            if (moved != null) spent.put(newName, moved);
+        }
+        Budget budget = budgets.remove(oldName);
+        if (budget != null) {
+            budget.setCategory(newName);
+            budgets.put(newName, budget);
+        }
+    }
+
+    /**
+     * The category's budget if spending {@code amountMinor} more would take it over its limit this month
+     * for the first time, and it hasn't already been alerted on this month; otherwise null.
+     */
+    synchronized Budget breachedBy(String category, long amountMinor) {
+        Budget budget = budgets.get(category);
+        if (budget == null) return null;
+        YearMonth now = currentMonth();
+        if (now.toString().equals(budget.getLastAlertedMonth())) return null;
+        // Compared in paise so a spend that exactly reaches the limit never trips it through rounding
+        long limit = budget.getMonthlyLimitMinor();
+        long spent = spentIn(now, category);
+        return spent + amountMinor > limit && spent <= limit ? copy(budget) : null;
+    }
+
+    synchronized void markAlerted(int budgetId, YearMonth month) {
+        for (Budget b : budgets.values()) {
+            if (b.getId() == budgetId) b.setLastAlertedMonth(month.toString());
+        }
+    }
+
+    /** Copies in the order they were created, so callers may edit them. */
+    synchronized List<Budget> budgets() {
+        List<Budget> list = new ArrayList<>();
+        for (Budget b : budgets.values()) list.add(copy(b));
+        list.sort(Comparator.comparingInt(Budget::getId));
+        return list;
+    }
+
+    /** Paise spent per category so far this month, every category with spending included. */
+    synchronized Map<String, Long> spentThisMonth() {
+        return new HashMap<>(spentByMonth.getOrDefault(currentMonth(), Map.of()));
+    }
+
+    synchronized long spentThisMonth(String category) {
+        return spentIn(currentMonth(), category);
+    }
+
+    private long spentIn(YearMonth month, String category) {
+        Map<String, Long> spent = spentByMonth.get(month);
+        return spent == null ? 0 : spent.getOrDefault(category, 0L);
+    }
+
+    /** Today's month, dropping the months that have ended since the last call. */
+    private YearMonth currentMonth() {
+        YearMonth now = YearMonth.now();
+        if (now.isAfter(firstMonth)) {
+            spentByMonth.headMap(now).clear();
+            firstMonth = now;
+        }
+        return now;
+    }
+
+    private static Budget copy(Budget b) {
+        return new Budget(b.getId(), b.getCategory(), b.getMonthlyLimit(), b.getLastAlertedMonth());
+    }
+}
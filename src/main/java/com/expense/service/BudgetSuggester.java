@@ -0,0 +1,147 @@
+// File: src/main/java/com/expense/service/BudgetSuggester.java
+
+package com.expense.service;
+
+import com.expense.model.BudgetSuggestion;
+import com.expense.model.BudgetSuggestion.Level;
+import com.expense.model.TransactionRecord;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Budget suggestions from each category's monthly totals over the last {@link #WINDOW_MONTHS} complete
+ * months, months without spending (since the category's first) included. A quantile sketch of those
+ * totals per category gives the limit for each {@link BudgetSuggestion.Level}, scaled by the spending
+ * trend over the same months. Fed by {@link TransactionFeed}: a change moves one month's total in and
+ * out of its sketch, so suggestions never rescan transactions.
+ */
+final class BudgetSuggester implements TransactionFeed.Listener {
+    private static final int WINDOW_MONTHS = 24;
+    // Fewer months than this don't show a trend
+    private static final int MIN_TREND_MONTHS = 6;
+    // The trend moves a limit by at most this fraction either way
+    private static final double MAX_TREND = 0.25;
+    // Limits are rounded to ₹50, and are never lower than that
+    private static final long ROUND_TO_MINOR = 5000;
+
+    private static final class Category {
+        YearMonth firstMonth;
+        // Paise per month from the window's first month on, months without spending left out
+        final TreeMap<YearMonth, Long> totals = new TreeMap<>();
+        // The window's complete months from firstMonth on; null when it has to be built again
+        QuantileSketch sketch;
+    }
+
+    private final Map<String, Category> categories = new HashMap<>();
+    private YearMonth currentMonth = YearMonth.now();
+
+    @Override
+    public synchronized void reset() {
+        categories.clear();
+        currentMonth = YearMonth.now();
+    }
+
+    @Override
+    public synchronized void apply(TransactionRecord r, int sign) {
+        YearMonth month = YearMonth.from(r.getDate());
+        Category c = categories.computeIfAbsent(r.category, k -> new Category());
+        if (c.firstMonth == null || month.isBefore(c.firstMonth)) {
+            // Months between the new first month and the old one now count as months without spending
+            if (c.firstMonth != null) c.sketch = null;
+            c.firstMonth = month;
+        }
+        if (month.isBefore(windowStart())) return;
+        long before = c.totals.getOrDefault(month, 0L);
+        long after = before + sign * r.amountMinor;
+        if (after == 0) c.totals.remove(month);
+        else c.totals.put(month, after);
+        if (c.sketch != null && month.isBefore(currentMonth)) {
+            c.sketch.remove(before);
+            c.sketch.add(after);
+        }
+    }
+
+    @Override
+    public synchronized void renamed(String oldName, String newName) {
+        Category moved = categories.remove(oldName);
+        if (moved != null) categories.put(newName, moved);
+    }
+
+    /** One suggestion per category that had spending in the window, by category name. */
+    synchronized List<BudgetSuggestion> suggestions() {
+        rollOver();
+        List<BudgetSuggestion> list = new ArrayList<>();
+        Level[] levels = Level.values();
+        for (Map.Entry<String, Category> e : categories.entrySet()) {
+            Category c = e.getValue();
+            if (c.sketch == null) c.sketch = sketchOf(c);
+            if (c.sketch.quantile(1) == 0) continue;
+            double trend = trendOf(c);
+            long[] limits = new long[levels.length];
+            for (Level level : levels) {
+                long limit = Math.round(c.sketch.quantile(level.percentile / 100.0) * trend / ROUND_TO_MINOR) * ROUND_TO_MINOR;
+                limits[level.ordinal()] = Math.max(ROUND_TO_MINOR, limit);
+            }
+            list.add(new BudgetSuggestion(e.getKey(), limits, (int) c.sketch.count(), trend));
+        }
+        list.sort(Comparator.comparing(BudgetSuggestion::getCategory));
+        return list;
+    }
+
+    private YearMonth windowStart() {
+        return currentMonth.minusMonths(WINDOW_MONTHS);
+    }
+
+    /** When the calendar has moved on, drops the months that left the window; every sketch is rebuilt on next use. */
+    private void rollOver() {
+        YearMonth now = YearMonth.now();
+        if (!now.isAfter(currentMonth)) return;
+        currentMonth = now;
+        for (Category c : categories.values()) {
+            c.totals.headMap(windowStart()).clear();
+            c.sketch = null;
+        }
+    }
+
+    private YearMonth firstCountedMonth(Category c) {
+        return c.firstMonth.isAfter(windowStart()) ? c.firstMonth : windowStart();
+    }
+
+    private QuantileSketch sketchOf(Category c) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (YearMonth m = firstCountedMonth(c); m.isBefore(currentMonth); m = m.plusMonths(1)) {
+            sketch.add(c.totals.getOrDefault(m, 0L));
+        }
+        return sketch;
+    }
+
+    /**
+     * Next month's total on the least-squares line through the counted months, over their mean: how much
+     * higher or lower than the window as a whole the category is heading. Clamped to {@link #MAX_TREND}.
+     */
+    private double trendOf(Category c) {
+        YearMonth first = firstCountedMonth(c);
+        int n = (int) ChronoUnit.MONTHS.between(first, currentMonth);
+        if (n < MIN_TREND_MONTHS) return 1;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int x = 0; x < n; x++) {
+            double y = c.totals.getOrDefault(first.plusMonths(x), 0L);
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += (double) x * x;
+        }
+        double mean = sumY / n;
+        if (mean <= 0) return 1;
+        double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+        double next = mean + slope * (n - (n - 1) / 2.0);
+        return Math.max(1 - MAX_TREND, Math.min(1 + MAX_TREND, next / mean));
+    }
+}
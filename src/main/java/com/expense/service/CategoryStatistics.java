@@ -0,0 +1,91 @@
+// File: src/main/java/com/expense/service/CategoryStatistics.java
+
+package com.expense.service;
+
+import com.expense.model.Money;
+import com.expense.model.TransactionRecord;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running count, sum and sum of squares of transaction amounts per category, over all of history.
+ * Fed by {@link TransactionFeed}: each change adds or subtracts its before and after rows, so the
+ * figures stay exact and a write costs the same however long the history is.
+ * Reads never touch the store and are safe from any thread.
+ */
+final class CategoryStatistics implements TransactionFeed.Listener {
+
+    /** Immutable, so a reader always sees a consistent triple. Amounts in paise. */
+    private static final class Moments {
+        static final Moments EMPTY = new Moments(0, 0, BigInteger.ZERO);
+
+        final long count;
+        final long sum;
+        // Squares of paise amounts overflow a long after a few thousand large transactions
+        final BigInteger sumOfSquares;
+
+        Moments(long count, long sum, BigInteger sumOfSquares) {
+            this.count = count;
+            this.sum = sum;
+            this.sumOfSquares = sumOfSquares;
+        }
+
+        Moments plus(long amount, int sign) {
+            BigInteger square = BigInteger.valueOf(amount).multiply(BigInteger.valueOf(amount));
+            return new Moments(count + sign, sum + sign * amount, sign > 0 ? sumOfSquares.add(square) : sumOfSquares.subtract(square));
+        }
+    }
+
+    private volatile Map<String, Moments> byCategory = new ConcurrentHashMap<>();
+
+    @Override
+    public void reset() {
+        byCategory = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void apply(TransactionRecord r, int sign) {
+        byCategory.compute(r.category, (category, m) -> {
+            Moments updated = (m == null ? Moments.EMPTY : m).plus(r.amountMinor, sign);
+            return updated.count == 0 ? null : updated;
+        });
+    }
+
+    @Override
+    public void renamed(String oldName, String newName) {
+        Moments moved = byCategory.remove(oldName);
+        if (moved != null) byCategory.put(newName, moved);
+    }
+
+    /** Average transaction amount in rupees, 0 for a category without transactions. */
+    double mean(String category) {
+        Moments m = byCategory.getOrDefault(category, Moments.EMPTY);
+        return m.count == 0 ? 0 : Money.toMajor(m.sum) / m.count;
+    }
+
+    /** Population standard deviation of the amounts in rupees, 0 with fewer than two transactions. */
+    double standardDeviation(String category) {
+        Moments m = byCategory.getOrDefault(category, Moments.EMPTY);
+        if (m.count < 2) return 0;
+        // n * sum(x^2) - sum(x)^2 is exact in integers; only the final division is in floating point
+        BigInteger sum = BigInteger.valueOf(m.sum);
+        double scaledVariance = m.sumOfSquares.multiply(BigInteger.valueOf(m.count)).subtract(sum.multiply(sum)).doubleValue();
+        return Math.sqrt(Math.max(0, scaledVariance)) / m.count / Money.MINOR_PER_MAJOR;
+    }
+
+    long count(String category) {
+        return byCategory.getOrDefault(category, Moments.EMPTY).count;
+    }
+
+    /** Average amount per category in rupees, for categories with transactions. */
+    Map<String, Double> means() {
+        Map<String, Double> means = new HashMap<>();
+        byCategory.forEach((category, m) -> {
+            if (m.count > 0) means.put(category, Money.toMajor(m.sum) / m.count);
+        });
+        return means;
+    }
+}
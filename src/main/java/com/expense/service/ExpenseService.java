@@ -2,124 +2,191 @@
 
 package com.expense.service;
 
+import com.expense.db.BackupManager;
 import com.expense.model.*;
-import com.expense.repo.TransactionRepository;
-import weka.clusterers.SimpleKMeans;
-import weka.core.Attribute;
-import weka.core.DenseInstance;
-import weka.core.Instances;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.Normalize;
+import com.expense.repo.TransactionStore;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 
 public class ExpenseService {
-    private final TransactionRepository repo = new TransactionRepository();
-    private Map<String, Double> spendingAveragesCache;
-    private static final double ANOMALY_MULTIPLIER = 4.0;
+    private final TransactionStore.Kind storeKind;
+    private final TransactionStore repo;
+    // In-memory figures kept current from the store's change log: per-category averages, each
+    // budget's spending this month for budget checks, and monthly totals for budget suggestions
+    private final TransactionFeed feed;
+    private final CategoryStatistics statistics = new CategoryStatistics();
+    private final BudgetLedger budgetLedger = new BudgetLedger();
+    private final BudgetSuggester budgetSuggester = new BudgetSuggester();
+    private final PersonaCache personas;
+
+    // --- ANOMALIES: streaming per-category estimates on a feed of their own, saved with its acknowledgements ---
+    private final TransactionFeed anomalyFeed;
+    private final StreamingAnomalyDetector anomalies;
     private static final double MINIMUM_ANOMALY_AMOUNT = 500.0;
+    private static final int ANOMALY_SCAN_PAGE = 500;
+
+    // --- BACKUPS: daily snapshots of expenses.db, the last week of them kept ---
+    private static final Duration BACKUP_INTERVAL = Duration.ofDays(1);
+    private static final int BACKUP_RETENTION = 7;
+    private final BackupManager backups = new BackupManager(Paths.get("backups"), BACKUP_RETENTION);
+
+    // --- ARCHIVAL: transactions older than this many months move to per-year archive files ---
+    private static final int ARCHIVE_AFTER_MONTHS = Integer.getInteger("expense.archive.months", 13);
+
+    // --- AGGREGATE CACHE: month, year and category totals, dropped precisely as transactions change ---
+    private static final int AGGREGATE_CACHE_ENTRIES = Integer.getInteger("expense.cache.entries", 256);
+    private final AggregateCache aggregates = new AggregateCache(AGGREGATE_CACHE_ENTRIES);
 
     private final Preferences prefs = Preferences.userNodeForPackage(ExpenseService.class);
     private static final String BUDGET_ALERTS_DISABLED = "budgetAlertsDisabled";
+    private volatile boolean budgetAlertsDisabled = prefs.getBoolean(BUDGET_ALERTS_DISABLED, false);
+
+    /** Uses the store chosen with -Dexpense.store, the expenses.db file by default. */
+    public ExpenseService() {
+        this(TransactionStore.Kind.configured());
+    }
+
+    public ExpenseService(TransactionStore.Kind storeKind) {
+        this.storeKind = storeKind;
+        this.repo = TransactionStore.open(storeKind);
+        // Acknowledges under the name of its first listener, so databases that already know it keep compacting
+        this.feed = new TransactionFeed(repo, "category-statistics");
+        feed.addListener(statistics);
+        feed.addListener(budgetLedger);
+        feed.addListener(budgetSuggester);
+        this.personas = new PersonaCache(repo);
+        feed.addListener(personas);
+        this.anomalies = new StreamingAnomalyDetector(repo);
+        this.anomalyFeed = new TransactionFeed(repo, StreamingAnomalyDetector.CONSUMER);
+        anomalyFeed.addListener(anomalies);
+    }
 
     public void init() throws SQLException {
         repo.init();
-        refreshSpendingAveragesCache();
+        aggregates.invalidateAll();
+        budgetLedger.setBudgets(repo.getAllBudgets());
+        feed.rebuild();
+        // The detector carries on from its saved state, and only replays history when there is none it can use
+        long anomaliesSeq = anomalies.restore();
+        if (anomaliesSeq < 0) anomalyFeed.rebuild();
+        else anomalyFeed.resume(anomaliesSeq);
+        // Log entries every consumer has applied are no longer needed
+        repo.compactChanges();
+    }
+
+    public TransactionStore.Kind getStoreKind() { return storeKind; }
+
+    /** Only the on-disk database is backed up on a schedule; an in-memory one can still be saved with {@link #backupNow()}. */
+    public void scheduleBackups() {
+        if (storeKind == TransactionStore.Kind.SQLITE) backups.scheduleEvery(BACKUP_INTERVAL);
+    }
+    public CompletableFuture<Path> backupNow() {
+        if (!storeKind.usesDatabase()) return CompletableFuture.failedFuture(new SQLException("The in-memory store has no database to back up."));
+        return backups.backupNow();
+    }
+    public Path getBackupDirectory() { return backups.getDirectory(); }
+    /** Replaces all data with the snapshot, then brings its schema up to date and reloads every cache. */
+    public void restoreBackup(Path snapshot) throws SQLException {
+        if (!storeKind.usesDatabase()) throw new SQLException("The in-memory store can't be restored from a database backup.");
+        backups.restore(snapshot);
+        init();
+    }
+
+    /** First day of the oldest month that stays in the live table when archiving. */
+    public LocalDate getArchiveCutoff() { return YearMonth.now().minusMonths(ARCHIVE_AFTER_MONTHS - 1).atDay(1); }
+    /** Moves transactions dated before the archive cutoff out of the live table; returns how many moved. */
+    public int archiveOldTransactions() throws SQLException {
+        int moved = repo.archiveBefore(getArchiveCutoff());
+        if (moved > 0) {
+            aggregates.invalidateAll();
+            catchUp();
+        }
+        return moved;
     }
 
     // --- THIS IS THE UPGRADED METHOD FOR THE NEW BAR CHART ---
     public Map<String, Double> getMonthlyTotalsForYear(int year) throws SQLException {
-        return repo.getMonthlyTotalsForYear(year);
-    }
-
-    public Budget checkBudgetBreach(String category, double newAmount) throws SQLException {
-        if (prefs.getBoolean(BUDGET_ALERTS_DISABLED, false)) return null;
-        Budget budget = repo.getBudgetByCategory(category);
-        if (budget == null) return null;
-        String currentMonthStr = YearMonth.now().toString();
-        if (currentMonthStr.equals(budget.getLastAlertedMonth())) return null;
-        double currentSpent = getSpentAmountForCategoryThisMonth(category);
-        double projectedSpent = currentSpent + newAmount;
-        if (projectedSpent > budget.getMonthlyLimit() && currentSpent <= budget.getMonthlyLimit()) {
-            return budget;
-        }
-        return null;
+        return toMajor(aggregates.get(AggregateCache.Key.ofYear("monthlyTotals", year),
+                () -> Collections.unmodifiableMap(repo.getMonthlyTotalsForYear(year))));
+    }
+
+    /**
+     * The budget that spending this much more in the category would take over its limit this month,
+     * or null. Answered from the in-memory budget ledger, so it is cheap enough for the UI thread.
+     */
+    public Budget checkBudgetBreach(String category, double newAmount) {
+        if (budgetAlertsDisabled) return null;
+        return budgetLedger.breachedBy(category, Money.toMinor(newAmount));
     }
     public void markBudgetAsAlerted(Budget budget) throws SQLException {
-        String currentMonthStr = YearMonth.now().toString();
-        repo.updateBudgetAlertMonth(budget.getId(), currentMonthStr);
+        YearMonth now = YearMonth.now();
+        repo.updateBudgetAlertMonth(budget.getId(), now.toString());
+        budgetLedger.markAlerted(budget.getId(), now);
     }
     public void disableBudgetAlerts() {
+        budgetAlertsDisabled = true;
         prefs.putBoolean(BUDGET_ALERTS_DISABLED, true);
     }
 
-    public Optional<Persona> generatePersona() throws Exception {
-        List<Transaction> transactions = repo.getAll();
-        if (transactions.size() < 30) return Optional.empty();
-        ArrayList<Attribute> attributes = new ArrayList<>();
-        attributes.add(new Attribute("amount"));
-        attributes.add(new Attribute("dayOfWeek"));
-        Instances dataset = new Instances("Transactions", attributes, transactions.size());
-        for (Transaction t : transactions) {
-            double[] values = new double[2];
-            values[0] = t.getAmount();
-            values[1] = t.getDate().getDayOfWeek().getValue();
-            dataset.add(new DenseInstance(1.0, values));
-        }
-        Normalize normalizeFilter = new Normalize();
-        normalizeFilter.setInputFormat(dataset);
-        Instances normalizedDataset = Filter.useFilter(dataset, normalizeFilter);
-        SimpleKMeans kMeans = new SimpleKMeans();
-        kMeans.setNumClusters(3);
-        kMeans.buildClusterer(normalizedDataset);
-        Map<Integer, List<Transaction>> clusters = new HashMap<>();
-        for (int i = 0; i < transactions.size(); i++) {
-            int clusterId = kMeans.clusterInstance(normalizedDataset.get(i));
-            clusters.computeIfAbsent(clusterId, k -> new ArrayList<>()).add(transactions.get(i));
-        }
-        List<Persona.ClusterDescription> clusterDescriptions = new ArrayList<>();
-        for (Map.Entry<Integer, List<Transaction>> entry : clusters.entrySet()) {
-            List<Transaction> clusterTransactions = entry.getValue();
-            if (clusterTransactions.isEmpty()) continue;
-            double avgAmount = clusterTransactions.stream().mapToDouble(Transaction::getAmount).average().orElse(0.0);
-            double avgDay = clusterTransactions.stream().mapToDouble(t -> t.getDate().getDayOfWeek().getValue()).average().orElse(0.0);
-            String timeFocus = (avgDay >= 5.5) ? "Weekend" : "Weekday";
-            String clusterName = String.format("%s %s", (avgAmount > 1000 ? "High-Value" : "Low-Value"), timeFocus + " Spending");
-            List<Map.Entry<String, Long>> topCategories = clusterTransactions.stream()
-                    .map(Transaction::getCategory).collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-                    .entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(2).collect(Collectors.toList());
-            clusterDescriptions.add(new Persona.ClusterDescription(clusterName, clusterTransactions.size(), avgAmount, timeFocus, topCategories));
-        }
-        return Optional.of(new Persona("Your Financial Persona", clusterDescriptions));
-    }
+    /**
+     * The spending persona. Usually complete already: it is only clustered again, in the background,
+     * once enough transactions have changed since it was last computed. Never waits.
+     */
+    public CompletableFuture<Optional<Persona>> getPersona() { return personas.get(); }
     public int processRecurringTransactions() throws SQLException {
         long todayTimestamp = LocalDate.now().toEpochDay();
         List<RecurringTransaction> dueItems = repo.getDueRecurringTransactions(todayTimestamp);
+        List<Transaction> generated = new ArrayList<>();
         int itemsProcessed = 0;
         for (RecurringTransaction item : dueItems) {
             while (!item.getNextDueDate().isAfter(LocalDate.now())) {
-                addTransaction(item.getNextDueDate(), item.getAmount(), item.getDescription(), item.getCategory());
+                generated.add(new Transaction(item.getNextDueDate(), item.getAmount(), item.getDescription(), item.getCategory()));
                 LocalDate newDueDate = item.getNextDueDate();
                 if (item.getFrequency() == RecurringTransaction.Frequency.MONTHLY) newDueDate = newDueDate.plusMonths(1);
                 else if (item.getFrequency() == RecurringTransaction.Frequency.YEARLY) newDueDate = newDueDate.plusYears(1);
                 item.setNextDueDate(newDueDate);
                 itemsProcessed++;
             }
-            repo.updateRecurringTransactionDueDate(item.getId(), item.getNextDueDate().toEpochDay());
+        }
+        // Insert everything first so a failure can't advance a due date without its transactions
+        addTransactions(generated);
+        // Queued together, the due date updates share a single commit
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+        for (RecurringTransaction item : dueItems) {
+            updates.add(repo.submitRecurringTransactionDueDate(item.getId(), item.getNextDueDate().toEpochDay()));
+        }
+        for (CompletableFuture<Void> update : updates) {
+            try {
+                update.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while updating recurring due dates.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+                throw new SQLException(e.getCause());
+            }
         }
         return itemsProcessed;
     }
@@ -131,60 +198,176 @@ public class ExpenseService {
     public void addContributionToGoal(int goalId, double amountToAdd) throws SQLException {
         SavingsGoal goal = repo.getSavingsGoalById(goalId);
         if (goal != null) {
-            double newAmount = goal.getCurrentAmount() + amountToAdd;
+            long newAmount = goal.getCurrentAmountMinor() + Money.toMinor(amountToAdd);
             repo.updateSavingsGoalAmount(goalId, newAmount);
             String description = String.format("Contribution to goal: %s", goal.getGoalName());
             addTransaction(LocalDate.now(), amountToAdd, description, "Savings");
         }
     }
     public void deleteSavingsGoal(int goalId) throws SQLException { repo.deleteSavingsGoal(goalId); }
+    /** Answered from the in-memory anomaly estimates; never waits on the database. */
     public boolean isAnomalous(String category, double amount) {
-        if (spendingAveragesCache == null || amount < MINIMUM_ANOMALY_AMOUNT) return false;
-        double average = spendingAveragesCache.getOrDefault(category, 0.0);
-        if (average == 0) return false;
-        return amount > (average * ANOMALY_MULTIPLIER);
+        return amount >= MINIMUM_ANOMALY_AMOUNT && anomalies.isAnomalous(category, Money.toMinor(amount));
+    }
+    /**
+     * Live transactions matching the filter that {@link #isAnomalous} flags by today's estimates, newest
+     * first, at most {@code limit}. Pages through the rows once, scoring each in memory.
+     */
+    public List<Transaction> findAnomalies(TransactionFilter filter, int limit) throws SQLException {
+        List<Transaction> found = new ArrayList<>();
+        List<Transaction> page = repo.getPage(null, null, ANOMALY_SCAN_PAGE, filter);
+        while (!page.isEmpty()) {
+            for (Transaction t : page) {
+                if (!isAnomalous(t.getCategory(), t.getAmount())) continue;
+                found.add(t);
+                if (found.size() == limit) return found;
+            }
+            if (page.size() < ANOMALY_SCAN_PAGE) break;
+            Transaction last = page.get(page.size() - 1);
+            page = repo.getPage(last.getDate().toEpochDay(), last.getId(), ANOMALY_SCAN_PAGE, filter);
+        }
+        return found;
     }
-    public void refreshSpendingAveragesCache() throws SQLException { this.spendingAveragesCache = repo.getCategoryAverageSpending(); }
+    /** Average transaction amount per category over all of history, in rupees, without a query. */
+    public Map<String, Double> getCategoryAverageSpending() { return statistics.means(); }
     public void addTransaction(LocalDate date, double amount, String desc, String category) throws SQLException {
         repo.insert(new Transaction(date, amount, desc, category));
-        refreshSpendingAveragesCache();
+        aggregates.invalidate(YearMonth.from(date), category);
+        catchUp();
+    }
+    /** Saves all transactions in a single database transaction and refreshes derived caches once. */
+    public void addTransactions(List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) return;
+        repo.insertAll(transactions);
+        invalidateAggregates(transactions);
+        catchUp();
     }
     public void updateTransaction(Transaction t) throws SQLException {
-        repo.updateTransaction(t);
-        refreshSpendingAveragesCache();
+        Transaction previous = repo.updateTransaction(t);
+        if (previous == null) return;
+        invalidateAggregates(List.of(previous, t));
+        catchUp();
     }
     public void deleteTransaction(int id) throws SQLException {
-        repo.deleteTransaction(id);
-        refreshSpendingAveragesCache();
+        Transaction deleted = repo.deleteTransaction(id);
+        if (deleted == null) return;
+        invalidateAggregates(List.of(deleted));
+        catchUp();
+    }
+    /** Drops the cached aggregates of each month and category the transactions fall in. */
+    private void invalidateAggregates(List<Transaction> transactions) {
+        Set<String> seen = new HashSet<>();
+        for (Transaction t : transactions) {
+            YearMonth month = YearMonth.from(t.getDate());
+            if (seen.add(month + "|" + t.getCategory())) aggregates.invalidate(month, t.getCategory());
+        }
+    }
+    // --- BULK EDITS: one store operation and one cache refresh, however many rows change ---
+    public int recategorizeTransactions(List<Integer> ids, String newCategory) throws SQLException {
+        return refreshedAfter(repo.recategorize(ids, newCategory));
+    }
+    /** Moves every transaction the search query finds to the category. */
+    public int recategorizeMatching(String query, String newCategory) throws SQLException {
+        return refreshedAfter(repo.recategorizeMatching(query, TransactionFilter.none(), newCategory));
+    }
+    /** Merges one category into another; see {@link TransactionStore#moveCategory}. */
+    public int moveCategory(String fromCategory, String toCategory) throws SQLException {
+        int moved = refreshedAfter(repo.moveCategory(fromCategory, toCategory));
+        // The category's budget may have moved (or been dropped) with it
+        reloadBudgets();
+        return moved;
+    }
+    public int deleteTransactions(List<Integer> ids) throws SQLException {
+        return refreshedAfter(repo.deleteTransactions(ids));
+    }
+    public int deleteTransactions(TransactionFilter filter) throws SQLException {
+        return refreshedAfter(repo.deleteMatching(filter));
+    }
+    /** Brings every feed's figures up to date with the store's change log. */
+    private void catchUp() throws SQLException {
+        feed.catchUp();
+        anomalyFeed.catchUp();
     }
-    public List<Transaction> getAll() throws SQLException { return repo.getAll(); }
+    private int refreshedAfter(BulkChange changed) throws SQLException {
+        if (changed.getCount() > 0) {
+            // Only the figures of the months and categories the rows left or joined
+            changed.getCategoriesByMonth().forEach((month, categories) -> categories.forEach(category -> aggregates.invalidate(month, category)));
+            catchUp();
+        }
+        return changed.getCount();
+    }
+    public void forEachTransaction(Consumer<TransactionRecord> action) throws SQLException { repo.forEachTransaction(action); }
     public List<Transaction> getRecentTransactions(int limit) throws SQLException { return repo.getRecentTransactions(limit); }
-    public Map<String, Double> getCategoryTotalsForMonth(YearMonth yearMonth) throws SQLException { return repo.getCategoryTotalsForMonth(yearMonth); }
-    public double getTotalForMonth(YearMonth yearMonth) throws SQLException { return repo.getTotalForMonth(yearMonth); }
+    public List<Transaction> getPage(Long afterTimestamp, Integer afterId, int limit, TransactionFilter filter) throws SQLException { return repo.getPage(afterTimestamp, afterId, limit, filter); }
+    public int countTransactions(TransactionFilter filter) throws SQLException { return repo.countTransactions(filter); }
+    public List<Transaction> search(String query, TransactionFilter filter, int limit) throws SQLException { return repo.search(query, filter, limit); }
+    public List<Integer> getTransactionYears() throws SQLException {
+        return aggregates.get(AggregateCache.Key.ofAll("years"), () -> Collections.unmodifiableList(repo.getTransactionYears()));
+    }
+    // Totals are kept in paise; the double variants are for display. Both are served from the aggregate cache.
+    /** The returned map is shared with other callers and can't be modified. */
+    public Map<String, Long> getCategoryTotalsForMonthMinor(YearMonth yearMonth) throws SQLException {
+        return aggregates.get(AggregateCache.Key.ofMonth("categoryTotals", yearMonth),
+                () -> Collections.unmodifiableMap(repo.getCategoryTotalsForMonth(yearMonth)));
+    }
+    public Map<String, Double> getCategoryTotalsForMonth(YearMonth yearMonth) throws SQLException { return toMajor(getCategoryTotalsForMonthMinor(yearMonth)); }
+    public double getTotalForMonth(YearMonth yearMonth) throws SQLException {
+        return Money.toMajor(aggregates.get(AggregateCache.Key.ofMonth("total", yearMonth), () -> repo.getTotalForMonth(yearMonth)));
+    }
+    /** Aggregate queries answered from the cache, and those that went to the store. */
+    public long getAggregateCacheHits() { return aggregates.hits(); }
+    public long getAggregateCacheMisses() { return aggregates.misses(); }
     public List<String> getAllCategories() throws SQLException { return repo.getAllCategories(); }
-    public List<Budget> getAllBudgets() throws SQLException { return repo.getAllBudgets(); }
-    public void addBudget(Budget b) throws SQLException { repo.addBudget(b); }
-    public void updateBudget(Budget b) throws SQLException { repo.updateBudget(b); }
-    public void deleteBudget(int id) throws SQLException { repo.deleteBudget(id); }
-    public double getSpentAmountForCategoryThisMonth(String category) throws SQLException { return repo.getSpentAmountForCategory(category, YearMonth.now()); }
-    public List<Budget> getBudgetSuggestions() throws SQLException {
-        Map<String, Double> averages = repo.getAverageMonthlySpendingPerCategory();
-        return averages.entrySet().stream()
-                .map(entry -> {
-                    double suggestedLimit = entry.getValue() * 1.10;
-                    suggestedLimit = Math.round(suggestedLimit / 50.0) * 50.0;
-                    return new Budget(entry.getKey(), Math.max(50, suggestedLimit));
-                })
-                .collect(Collectors.toList());
-    }
-    public List<TransactionData> getTransactionDataForRegression() throws SQLException { return repo.getTransactionDataForRegression(); }
+    public void renameCategory(String oldName, String newName) throws SQLException {
+        repo.renameCategory(oldName, newName);
+        aggregates.invalidateAll();
+        // The rename is in the change log, so each feed applies it in order with the changes around it,
+        // including a feed resuming from state saved before a crash
+        catchUp();
+    }
+    // --- BUDGETS: read from the ledger, which reloads them after each change ---
+    public List<Budget> getAllBudgets() { return budgetLedger.budgets(); }
+    /** Paise spent per category so far this month, from the ledger. */
+    public Map<String, Long> getMonthToDateSpending() { return budgetLedger.spentThisMonth(); }
+    public void addBudget(Budget b) throws SQLException {
+        repo.addBudget(b);
+        reloadBudgets();
+    }
+    public void updateBudget(Budget b) throws SQLException {
+        repo.updateBudget(b);
+        reloadBudgets();
+    }
+    public void deleteBudget(int id) throws SQLException {
+        repo.deleteBudget(id);
+        reloadBudgets();
+    }
+    private void reloadBudgets() throws SQLException { budgetLedger.setBudgets(repo.getAllBudgets()); }
+    public double getSpentAmountForCategoryThisMonth(String category) { return Money.toMajor(budgetLedger.spentThisMonth(category)); }
+    /** Limits at every level for each category with spending in the last two years, from the in-memory monthly totals. */
+    public List<BudgetSuggestion> getBudgetSuggestionOptions() { return budgetSuggester.suggestions(); }
+    /** New, unsaved budgets with the suggested limit at the level, one per category. */
+    public List<Budget> getBudgetSuggestions(BudgetSuggestion.Level level) {
+        return getBudgetSuggestionOptions().stream().map(s -> s.toBudget(level)).collect(Collectors.toList());
+    }
+    public void forEachTransactionData(Consumer<TransactionData> action) throws SQLException { repo.forEachTransactionData(action); }
     public Map<String, Integer> getCategoryCodeMap() throws SQLException { return repo.getCategoryCodeMap(); }
-    public double getLastMonthTotalSpending() throws SQLException { return repo.getTotalForMonth(YearMonth.now().minusMonths(1)); }
+    public double getLastMonthTotalSpending() throws SQLException { return getTotalForMonth(YearMonth.now().minusMonths(1)); }
+    private static Map<String, Double> toMajor(Map<String, Long> minorAmounts) {
+        Map<String, Double> map = new HashMap<>();
+        minorAmounts.forEach((key, minor) -> map.put(key, Money.toMajor(minor)));
+        return map;
+    }
     public void logCorrection(String description, String correctCategory) {
+        logCorrections(List.of(description), correctCategory);
+    }
+    /** Appends one training correction per description, all in one write to the corrections file. */
+    public void logCorrections(List<String> descriptions, String correctCategory) {
         try (FileWriter fw = new FileWriter("data/corrections.csv", true);
              BufferedWriter bw = new BufferedWriter(fw);
              PrintWriter out = new PrintWriter(bw)) {
-            out.println("\"" + description.replace("\"", "\"\"") + "\",\"" + correctCategory.replace("\"", "\"\"") + "\"");
+            for (String description : descriptions) {
+                out.println("\"" + description.replace("\"", "\"\"") + "\",\"" + correctCategory.replace("\"", "\"\"") + "\"");
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,299 @@
+// File: src/main/java/com/expense/service/PersonaCache.java
+
+package com.expense.service;
+
+import com.expense.model.Persona;
+import com.expense.model.TransactionRecord;
+import com.expense.repo.TransactionStore;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * The spending persona: every transaction clustered by amount and day of the week (k-means on
+ * min-max scaled values), each cluster described by its average amount, timing and top categories.
+ * Computed on a background thread and kept until enough transactions have changed to be worth
+ * clustering again; {@link TransactionFeed} counts the changes. A recomputation starts from the
+ * previous model's centroids, so it usually settles in a few passes and clusters keep their order.
+ * Transactions are streamed once per pass rather than held, so memory doesn't grow with the history.
+ */
+final class PersonaCache implements TransactionFeed.Listener {
+    private static final int MIN_TRANSACTIONS = 30;
+    private static final int CLUSTERS = 3;
+    // Each iteration reads every transaction again, so stop once centroids barely move (in scaled units)
+    private static final int MAX_PASSES = 20;
+    private static final double TOLERANCE = 1e-3;
+    // Rows kept to pick cold-start centroids from
+    private static final int SAMPLE_SIZE = 2048;
+    private static final long SEED = 10;
+    // Recompute after this many changed transactions, or this fraction of the model's, whichever is more
+    private static final long MIN_CHANGES = 20;
+    private static final double CHANGE_FRACTION = 0.02;
+
+    private final TransactionStore store;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "expense-persona");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // All guarded by this
+    private Optional<Persona> persona; // null until the first model
+    private double[][] centroids; // the last model's, in rupees and ISO day of week; null without one
+    private int modelSize;
+    private long changesSinceModel;
+    private boolean stale; // the data was reloaded or renamed under the model
+    private CompletableFuture<Optional<Persona>> recomputing;
+
+    PersonaCache(TransactionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * The cached persona, already complete unless it is out of date. Otherwise the future of a
+     * recomputation, started here if none is running. Never waits.
+     */
+    synchronized CompletableFuture<Optional<Persona>> get() {
+        if (recomputing != null) return recomputing;
+        if (!isOutOfDate()) return CompletableFuture.completedFuture(persona);
+        double[][] warm = centroids;
+        long counted = changesSinceModel;
+        stale = false;
+        CompletableFuture<Optional<Persona>> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return compute(warm);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).handle((model, error) -> installed(model, counted, error));
+        // Already installed if it finished before handle() was attached
+        if (!future.isDone()) recomputing = future;
+        return future;
+    }
+
+    private boolean isOutOfDate() {
+        if (persona == null || stale) return true;
+        // Without enough data any change might be the one that makes enough
+        if (persona.isEmpty()) return changesSinceModel > 0;
+        return changesSinceModel >= Math.max(MIN_CHANGES, (long) (CHANGE_FRACTION * modelSize));
+    }
+
+    private synchronized Optional<Persona> installed(Model model, long counted, Throwable error) {
+        recomputing = null;
+        if (error != null) {
+            stale = true;
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        }
+        persona = model.persona;
+        if (model.centroids != null) centroids = model.centroids;
+        modelSize = model.size;
+        // Changes counted while the rows were being read may or may not be in them; count them again
+        changesSinceModel -= counted;
+        return persona;
+    }
+
+    @Override
+    public synchronized void reset() {
+        stale = true;
+    }
+
+    @Override
+    public void apply(TransactionRecord r, int sign) {
+        // Only called for snapshot rows, which reset() already accounted for
+    }
+
+    @Override
+    public synchronized void changed(TransactionRecord before, TransactionRecord after) {
+        changesSinceModel++;
+    }
+
+    @Override
+    public synchronized void renamed(String oldName, String newName) {
+        // Cluster descriptions name categories
+        stale = true;
+    }
+
+    private static final class Model {
+        final Optional<Persona> persona;
+        final double[][] centroids;
+        final int size;
+
+        Model(Optional<Persona> persona, double[][] centroids, int size) {
+            this.persona = persona;
+            this.centroids = centroids;
+            this.size = size;
+        }
+    }
+
+    /** Receives each transaction with both of its features scaled to the model's ranges. */
+    private interface Pass {
+        void row(double x, double y, TransactionRecord t);
+    }
+
+    /**
+     * Streams every transaction a few times over instead of holding them: once for the count, the
+     * feature ranges and a fixed-size sample to seed from, then once per k-means iteration, keeping
+     * only per-cluster sums. Heap use is the same for any number of transactions.
+     */
+    private Model compute(double[][] warmCentroids) throws SQLException {
+        Random random = new Random(SEED);
+        double[] sampleXs = new double[SAMPLE_SIZE];
+        double[] sampleYs = new double[SAMPLE_SIZE];
+        double[] range = {Double.MAX_VALUE, -Double.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        int[] count = {0};
+        store.forEachTransaction(t -> {
+            double amount = t.getAmount();
+            int day = t.getDate().getDayOfWeek().getValue();
+            range[0] = Math.min(range[0], amount);
+            range[1] = Math.max(range[1], amount);
+            range[2] = Math.min(range[2], day);
+            range[3] = Math.max(range[3], day);
+            // Reservoir sample, unscaled for now
+            int slot = count[0] < SAMPLE_SIZE ? count[0] : random.nextInt(count[0] + 1);
+            if (slot < SAMPLE_SIZE) {
+                sampleXs[slot] = amount;
+                sampleYs[slot] = day;
+            }
+            count[0]++;
+        });
+        int n = count[0];
+        if (n < MIN_TRANSACTIONS) return new Model(Optional.empty(), null, n);
+
+        // Both features scaled to [0, 1] over the data, so neither dominates the distance
+        double minAmount = range[0];
+        double amountRange = range[1] > range[0] ? range[1] - range[0] : 1;
+        double minDay = range[2];
+        double dayRange = range[3] > range[2] ? range[3] - range[2] : 1;
+
+        double[][] scaled = new double[CLUSTERS][];
+        if (warmCentroids != null) {
+            for (int c = 0; c < CLUSTERS; c++) {
+                scaled[c] = new double[]{(warmCentroids[c][0] - minAmount) / amountRange, (warmCentroids[c][1] - minDay) / dayRange};
+            }
+        } else {
+            int sampled = Math.min(n, SAMPLE_SIZE);
+            for (int i = 0; i < sampled; i++) {
+                sampleXs[i] = (sampleXs[i] - minAmount) / amountRange;
+                sampleYs[i] = (sampleYs[i] - minDay) / dayRange;
+            }
+            seed(random, sampleXs, sampleYs, sampled, scaled);
+        }
+
+        // Lloyd's iterations, one pass each, until no centroid moves more than the tolerance. The
+        // description comes from the last pass's assignment, made with centroids that then stayed put.
+        ClusterStats[] stats;
+        int pass = 0;
+        while (true) {
+            double[][] sums = new double[CLUSTERS][3];
+            ClusterStats[] passStats = new ClusterStats[CLUSTERS];
+            for (int c = 0; c < CLUSTERS; c++) passStats[c] = new ClusterStats();
+            double[][] current = scaled;
+            forEachScaled(minAmount, amountRange, minDay, dayRange, (x, y, t) -> {
+                int c = nearest(current, CLUSTERS, x, y);
+                sums[c][0] += x;
+                sums[c][1] += y;
+                sums[c][2]++;
+                passStats[c].add(t.getAmount(), t.getDate().getDayOfWeek().getValue(), t.category);
+            });
+            stats = passStats;
+            double shift = 0;
+            double[][] next = new double[CLUSTERS][];
+            for (int c = 0; c < CLUSTERS; c++) {
+                // An emptied cluster keeps its centroid
+                next[c] = sums[c][2] > 0 ? new double[]{sums[c][0] / sums[c][2], sums[c][1] / sums[c][2]} : current[c];
+                shift = Math.max(shift, Math.sqrt(squaredDistance(current[c], next[c][0], next[c][1])));
+            }
+            if (shift <= TOLERANCE || ++pass == MAX_PASSES) break;
+            scaled = next;
+        }
+
+        double[][] centroids = new double[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centroids[c] = new double[]{minAmount + scaled[c][0] * amountRange, minDay + scaled[c][1] * dayRange};
+        }
+        return new Model(Optional.of(describe(stats)), centroids, n);
+    }
+
+    private void forEachScaled(double minAmount, double amountRange, double minDay, double dayRange, Pass pass) throws SQLException {
+        store.forEachTransaction(t -> pass.row((t.getAmount() - minAmount) / amountRange,
+                (t.getDate().getDayOfWeek().getValue() - minDay) / dayRange, t));
+    }
+
+    /** k-means++ over the first {@code n} sample rows: each further centroid is picked with probability growing with its squared distance from the nearest so far. */
+    private static void seed(Random random, double[] xs, double[] ys, int n, double[][] centroids) {
+        int first = random.nextInt(n);
+        centroids[0] = new double[]{xs[first], ys[first]};
+        double[] distances = new double[n];
+        for (int c = 1; c < CLUSTERS; c++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                int nearest = nearest(centroids, c, xs[i], ys[i]);
+                distances[i] = squaredDistance(centroids[nearest], xs[i], ys[i]);
+                total += distances[i];
+            }
+            int pick = 0;
+            double target = random.nextDouble() * total;
+            while (pick < n - 1 && (target -= distances[pick]) > 0) pick++;
+            centroids[c] = new double[]{xs[pick], ys[pick]};
+        }
+    }
+
+    /** Index of the nearest of the first {@code count} centroids. */
+    private static int nearest(double[][] centroids, int count, double x, double y) {
+        int best = 0;
+        double bestDistance = Double.MAX_VALUE;
+        for (int c = 0; c < count; c++) {
+            double d = squaredDistance(centroids[c], x, y);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static double squaredDistance(double[] centroid, double x, double y) {
+        double dx = centroid[0] - x, dy = centroid[1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static Persona describe(ClusterStats[] clusters) {
+        List<Persona.ClusterDescription> clusterDescriptions = new ArrayList<>();
+        for (ClusterStats stats : clusters) {
+            if (stats.count == 0) continue;
+            double avgAmount = stats.amountSum / stats.count;
+            double avgDay = stats.daySum / stats.count;
+            String timeFocus = (avgDay >= 5.5) ? "Weekend" : "Weekday";
+            String clusterName = String.format("%s %s", (avgAmount > 1000 ? "High-Value" : "Low-Value"), timeFocus + " Spending");
+            List<Map.Entry<String, Long>> topCategories = stats.categoryCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(2).collect(Collectors.toList());
+            clusterDescriptions.add(new Persona.ClusterDescription(clusterName, stats.count, avgAmount, timeFocus, topCategories));
+        }
+        return new Persona("Your Financial Persona", clusterDescriptions);
+    }
+
+    private static class ClusterStats {
+        int count;
+        double amountSum;
+        double daySum;
+        final Map<String, Long> categoryCounts = new HashMap<>();
+
+        void add(double amount, double dayOfWeek, String category) {
+            count++;
+            amountSum += amount;
+            daySum += dayOfWeek;
+            categoryCounts.merge(category, 1L, Long::sum);
+        }
+    }
+}
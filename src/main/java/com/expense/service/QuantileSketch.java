@@ -0,0 +1,82 @@
+// File: src/main/java/com/expense/service/QuantileSketch.java
+
+package com.expense.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Relative-error quantile sketch over non-negative amounts in paise (the DDSketch scheme). Values are
+ * counted in logarithmic buckets, so a quantile comes back within the sketch's accuracy of a value that
+ * was added, memory depends on the range of the values rather than how many there are, and a value
+ * can be taken out again as exactly as it went in. Zeros are counted apart. Two sketches with the same
+ * accuracy share bucket bounds, so {@link #merge} gives exactly the sketch of both sets of values.
+ */
+final class QuantileSketch {
+    static final double ACCURACY = 0.01;
+
+    private final double gamma;
+    private final double logGamma;
+    // Bucket i counts the values in (gamma^(i-1), gamma^i]
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeros;
+    private long count;
+
+    QuantileSketch() {
+        this(ACCURACY);
+    }
+
+    /** A sketch whose quantiles are within {@code accuracy} (relative) of an added value. */
+    QuantileSketch(double accuracy) {
+        if (!(accuracy > 0 && accuracy < 1)) throw new IllegalArgumentException("Accuracy must be in (0, 1): " + accuracy);
+        gamma = (1 + accuracy) / (1 - accuracy);
+        logGamma = Math.log(gamma);
+    }
+
+    void add(long value) {
+        change(value, 1);
+    }
+
+    /** Takes out a value added before. */
+    void remove(long value) {
+        change(value, -1);
+    }
+
+    long count() {
+        return count;
+    }
+
+    /** Adds every value counted by the other sketch, which must have the same accuracy. */
+    void merge(QuantileSketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("Can't merge sketches of different accuracy.");
+        }
+        other.buckets.forEach((index, n) -> buckets.merge(index, n, (a, b) -> a + b == 0 ? null : a + b));
+        zeros += other.zeros;
+        count += other.count;
+    }
+
+    /** The q-quantile for q in [0, 1], within the sketch's accuracy; 0 when empty. */
+    long quantile(double q) {
+        if (count == 0) return 0;
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeros;
+        if (rank < seen) return 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            // The estimate for a bucket is within the accuracy of both of its bounds
+            if (rank < seen) return Math.round(2 * Math.pow(gamma, bucket.getKey()) / (gamma + 1));
+        }
+        return Math.round(Math.pow(gamma, buckets.lastKey()));
+    }
+
+    private void change(long value, int delta) {
+        count += delta;
+        if (value <= 0) {
+            zeros += delta;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        buckets.merge(index, (long) delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
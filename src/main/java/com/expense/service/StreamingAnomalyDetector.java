@@ -0,0 +1,237 @@
+// File: src/main/java/com/expense/service/StreamingAnomalyDetector.java
+
+package com.expense.service;
+
+import com.expense.model.TransactionRecord;
+import com.expense.repo.TransactionStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flags amounts that are high for their category, judged by two estimates kept per category: an
+ * exponentially weighted mean and variance, and the median and median absolute deviation of the log
+ * amount, read off a fixed histogram whose weights decay the same way. Only an amount both call high
+ * is anomalous. Recent transactions weigh most, so a category whose spending has shifted stops
+ * looking odd after a while; deleted or edited rows aren't taken back out, they fade like the rest.
+ * An update costs the same however long the history, and a check reads a few fields without allocating.
+ * Fed by its own {@link TransactionFeed}; its state is saved with each acknowledgement, so a restart
+ * only applies what was logged since.
+ */
+final class StreamingAnomalyDetector implements AnomalyDetector, TransactionFeed.Listener {
+    static final String CONSUMER = "anomaly-detector";
+
+    // Weight each earlier transaction of the category loses per new one: a half-life of about 35 transactions
+    private static final double DECAY = 0.02;
+    // Histogram of log2(paise) in quarter-doubling buckets (about 19% wide), from 1 paisa to about ₹4 crore
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    private static final int BUCKETS = 32 * BUCKETS_PER_DOUBLING;
+    // Fewer transactions than this say too little about a category to call anything in it unusual
+    private static final long MIN_HISTORY = 10;
+    // Modified z-score (Iglewicz and Hoaglin) of the log amount, and plain z-score against the weighted mean
+    private static final double ROBUST_THRESHOLD = 3.5;
+    private static final double MEAN_THRESHOLD = 3.0;
+    // Floors on both spreads, so a category that always costs the same (rent) isn't flagged for a small change
+    private static final double MIN_LOG_DEVIATION = 0.5 / BUCKETS_PER_DOUBLING;
+    private static final double MIN_RELATIVE_DEVIATION = 0.1;
+    private static final int STATE_VERSION = 1;
+
+    /** One category's estimates; amounts in paise. The feed writes and checks read under its monitor. */
+    private static final class Estimator {
+        long count;
+        // Decayed total weight, weighted mean and weighted sum of squared deviations (West's update)
+        double weight;
+        double mean;
+        double m2;
+        final double[] histogram = new double[BUCKETS];
+        // While a snapshot loads, newest first: the weight the next (older) row gets
+        double nextWeight = 1;
+        // What checks read, recomputed after each update
+        double deviation;
+        double logMedian;
+        double logDeviation;
+
+        synchronized void observe(long amountMinor) {
+            // Everything seen so far becomes one transaction older
+            weight *= 1 - DECAY;
+            m2 *= 1 - DECAY;
+            for (int b = 0; b < BUCKETS; b++) histogram[b] *= 1 - DECAY;
+            add(amountMinor, 1);
+            refresh();
+        }
+
+        /** A row older than every one added so far; {@link #refresh} runs once they're all in. */
+        synchronized void observeOlder(long amountMinor) {
+            add(amountMinor, nextWeight);
+            nextWeight *= 1 - DECAY;
+        }
+
+        private void add(long amountMinor, double w) {
+            count++;
+            weight += w;
+            double delta = amountMinor - mean;
+            mean += delta * w / weight;
+            m2 += w * delta * (amountMinor - mean);
+            histogram[bucketOf(amountMinor)] += w;
+        }
+
+        synchronized void refresh() {
+            deviation = weight > 0 ? Math.sqrt(Math.max(0, m2 / weight)) : 0;
+            double half = 0;
+            for (double h : histogram) half += h / 2;
+            // Median: the bucket where half the weight is reached, interpolated within it
+            int m = 0;
+            double below = 0;
+            while (m < BUCKETS - 1 && below + histogram[m] < half) below += histogram[m++];
+            logMedian = (m + (histogram[m] > 0 ? (half - below) / histogram[m] : 0.5)) / BUCKETS_PER_DOUBLING;
+            // Median absolute deviation: take buckets nearest the median first until half the weight is covered
+            int left = m, right = m + 1;
+            double covered = 0, distance = 0;
+            while (covered < half && (left >= 0 || right < BUCKETS)) {
+                double leftDistance = left >= 0 ? Math.abs(logMedian - centreOf(left)) : Double.MAX_VALUE;
+                double rightDistance = right < BUCKETS ? centreOf(right) - logMedian : Double.MAX_VALUE;
+                if (leftDistance <= rightDistance) {
+                    covered += histogram[left--];
+                    distance = leftDistance;
+                } else {
+                    covered += histogram[right++];
+                    distance = rightDistance;
+                }
+            }
+            logDeviation = distance;
+        }
+
+        synchronized double score(long amountMinor) {
+            if (count < MIN_HISTORY || amountMinor <= mean) return 0;
+            double robust = 0.6745 * (log2(amountMinor) - logMedian) / Math.max(logDeviation, MIN_LOG_DEVIATION) / ROBUST_THRESHOLD;
+            double z = (amountMinor - mean) / Math.max(deviation, mean * MIN_RELATIVE_DEVIATION) / MEAN_THRESHOLD;
+            return Math.max(0, Math.min(robust, z));
+        }
+
+        synchronized void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(count);
+            out.writeDouble(weight);
+            out.writeDouble(mean);
+            out.writeDouble(m2);
+            for (double h : histogram) out.writeDouble(h);
+        }
+
+        static Estimator readFrom(DataInputStream in) throws IOException {
+            Estimator e = new Estimator();
+            e.count = in.readLong();
+            e.weight = in.readDouble();
+            e.mean = in.readDouble();
+            e.m2 = in.readDouble();
+            for (int b = 0; b < BUCKETS; b++) e.histogram[b] = in.readDouble();
+            e.refresh();
+            return e;
+        }
+    }
+
+    private final TransactionStore store;
+    private volatile Map<String, Estimator> byCategory = new ConcurrentHashMap<>();
+    // Built between reset() and loaded() while the feed replays a snapshot, then swapped in whole
+    private Map<String, Estimator> loading;
+
+    StreamingAnomalyDetector(TransactionStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public double score(String category, long amountMinor) {
+        Estimator e = byCategory.get(category);
+        return e == null ? 0 : e.score(amountMinor);
+    }
+
+    /** Takes up the state saved at the last acknowledgement; returns the seq it is as of, or -1 if there is none to use. */
+    long restore() throws SQLException {
+        byte[] state = store.getChangeConsumerState(CONSUMER);
+        if (state == null) return -1;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+            // Saved by a version with other settings: the estimates don't mean the same thing
+            if (in.readInt() != STATE_VERSION || in.readDouble() != DECAY || in.readInt() != BUCKETS) return -1;
+            long seq = in.readLong();
+            Map<String, Estimator> restored = new ConcurrentHashMap<>();
+            for (int n = in.readInt(); n > 0; n--) restored.put(in.readUTF(), Estimator.readFrom(in));
+            byCategory = restored;
+            return seq;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void reset() {
+        loading = new HashMap<>();
+    }
+
+    @Override
+    public void apply(TransactionRecord r, int sign) {
+        if (sign < 0) return;
+        if (loading != null) {
+            loading.computeIfAbsent(r.category, c -> new Estimator()).observeOlder(r.amountMinor);
+        } else {
+            byCategory.computeIfAbsent(r.category, c -> new Estimator()).observe(r.amountMinor);
+        }
+    }
+
+    @Override
+    public void loaded() {
+        loading.values().forEach(Estimator::refresh);
+        byCategory = new ConcurrentHashMap<>(loading);
+        loading = null;
+    }
+
+    @Override
+    public void changed(TransactionRecord before, TransactionRecord after) {
+        // A new description or date isn't a new amount to learn from
+        if (after == null || before != null && before.amountMinor == after.amountMinor && before.category.equals(after.category)) return;
+        apply(after, 1);
+    }
+
+    @Override
+    public void renamed(String oldName, String newName) {
+        Estimator moved = byCategory.remove(oldName);
+        if (moved != null) byCategory.put(newName, moved);
+    }
+
+    @Override
+    public void acknowledging(long seq) throws SQLException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(STATE_VERSION);
+            out.writeDouble(DECAY);
+            out.writeInt(BUCKETS);
+            out.writeLong(seq);
+            Map<String, Estimator> all = byCategory;
+            out.writeInt(all.size());
+            for (Map.Entry<String, Estimator> e : all.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not save the anomaly detector's state", e);
+        }
+        store.saveChangeConsumerState(CONSUMER, seq, bytes.toByteArray());
+    }
+
+    private static int bucketOf(long amountMinor) {
+        int b = (int) Math.floor(log2(Math.max(1, amountMinor)) * BUCKETS_PER_DOUBLING);
+        return Math.min(BUCKETS - 1, Math.max(0, b));
+    }
+
+    private static double centreOf(int bucket) {
+        return (bucket + 0.5) / BUCKETS_PER_DOUBLING;
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+}
@@ -0,0 +1,112 @@
+// File: src/main/java/com/expense/service/TransactionFeed.java
+
+package com.expense.service;
+
+import com.expense.model.TransactionChange;
+import com.expense.model.TransactionRecord;
+import com.expense.repo.ChangeLogGapException;
+import com.expense.repo.TransactionStore;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the service's in-memory figures in step with the store by following its change log.
+ * Listeners are loaded once from a snapshot, then told about each transaction that starts or stops
+ * counting, so keeping them current costs O(changes) rather than a rescan of history.
+ * Each feed is a separate consumer of the log, acknowledging under its own name.
+ */
+final class TransactionFeed {
+
+    interface Listener {
+        /** Everything is about to be reloaded from a snapshot; start over from nothing. */
+        void reset();
+        /** The transaction now counts (sign 1) or no longer does (sign -1). */
+        void apply(TransactionRecord r, int sign);
+        /** A category was renamed; changes logged before the rename have already been applied. */
+        void renamed(String oldName, String newName);
+        /** Called after the snapshot rows of a {@link #rebuild}, which come newest first. */
+        default void loaded() {
+        }
+        /** One logged change; before is null for an insert, after for a delete. */
+        default void changed(TransactionRecord before, TransactionRecord after) {
+            if (before != null) apply(before, -1);
+            if (after != null) apply(after, 1);
+        }
+        /** Everything up to the seq has been applied and is about to be acknowledged; a listener that saves its state does it here. */
+        default void acknowledging(long seq) throws SQLException {
+        }
+    }
+
+    private static final int CHANGE_BATCH = 1000;
+    // Acknowledging is a write, so it's done (with a compaction) once per this many applied changes
+    private static final long ACKNOWLEDGE_EVERY = 1000;
+
+    private final TransactionStore store;
+    private final String consumer;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long appliedSeq; // guarded by this
+    private long acknowledgedSeq; // guarded by this
+
+    TransactionFeed(TransactionStore store, String consumer) {
+        this.store = store;
+        this.consumer = consumer;
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Reloads every listener from a snapshot of the store; the only full scan, done on startup and after a restore. */
+    synchronized void rebuild() throws SQLException {
+        listeners.forEach(Listener::reset);
+        long seq = store.forEachTransactionAsOfChange(r -> listeners.forEach(l -> l.apply(r, 1)));
+        listeners.forEach(Listener::loaded);
+        appliedSeq = seq;
+        acknowledge();
+    }
+
+    /**
+     * Continues from state the listeners saved as of the seq, applying only what was logged since.
+     * Falls back to {@link #rebuild} when the log no longer reaches back that far.
+     */
+    synchronized void resume(long seq) throws SQLException {
+        appliedSeq = seq;
+        acknowledgedSeq = seq;
+        catchUp();
+    }
+
+    /** Applies every change logged since the last call. Cheap when nothing happened: one indexed read. */
+    synchronized void catchUp() throws SQLException {
+        List<TransactionChange> changes;
+        do {
+            try {
+                changes = store.getChangesSince(appliedSeq, CHANGE_BATCH);
+            } catch (ChangeLogGapException e) {
+                rebuild();
+                return;
+            }
+            for (TransactionChange change : changes) {
+                appliedSeq = change.seq;
+                // An archived transaction still counts; it has only moved
+                if (change.type == TransactionChange.Type.ARCHIVE) continue;
+                if (change.type == TransactionChange.Type.RENAME) {
+                    for (Listener l : listeners) l.renamed(change.before.category, change.after.category);
+                    continue;
+                }
+                for (Listener l : listeners) l.changed(change.before, change.after);
+            }
+        } while (changes.size() == CHANGE_BATCH);
+        if (appliedSeq - acknowledgedSeq >= ACKNOWLEDGE_EVERY) {
+            acknowledge();
+            store.compactChanges();
+        }
+    }
+
+    private void acknowledge() throws SQLException {
+        for (Listener l : listeners) l.acknowledging(appliedSeq);
+        store.acknowledgeChanges(consumer, appliedSeq);
+        acknowledgedSeq = appliedSeq;
+    }
+}
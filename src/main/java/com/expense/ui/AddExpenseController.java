@@ -3,6 +3,8 @@
 package com.expense.ui;
 
 import com.expense.ml.WekaPredictor;
+import com.expense.model.Budget;
+import com.expense.model.Money;
 import com.expense.service.ExpenseService;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -18,6 +20,7 @@ import org.kordamp.ikonli.materialdesign2.MaterialDesignC;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignH;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -133,20 +136,49 @@ public class AddExpenseController {
                 }
             }
 
-            saveTransaction(date, amount, desc, category);
+            // Answered from the service's in-memory budget ledger, so no query runs on the FX thread
+            Budget breached = service.checkBudgetBreach(category, amount);
+            if (breached != null) {
+                ButtonType saveAnyway = new ButtonType("Save Anyway", ButtonBar.ButtonData.OK_DONE);
+                ButtonType stopAlerts = new ButtonType("Save, Stop Alerts", ButtonBar.ButtonData.OTHER);
+                Alert budgetAlert = new Alert(Alert.AlertType.WARNING, "", saveAnyway, stopAlerts, ButtonType.CANCEL);
+                budgetAlert.setTitle("Budget Alert");
+                budgetAlert.setHeaderText(String.format("This expense takes '%s' over its monthly budget of %s.",
+                        category, Money.format(breached.getMonthlyLimitMinor())));
+                budgetAlert.setContentText("Do you still want to add this transaction?");
+
+                Optional<ButtonType> result = budgetAlert.showAndWait();
+                if (result.isEmpty() || result.get() == ButtonType.CANCEL) {
+                    return;
+                }
+                if (result.get() == stopAlerts) {
+                    service.disableBudgetAlerts();
+                }
+            }
+
+            if (saveTransaction(date, amount, desc, category) && breached != null) {
+                try {
+                    service.markBudgetAsAlerted(breached);
+                } catch (SQLException e) {
+                    // Only means the alert may be shown again this month
+                    e.printStackTrace();
+                }
+            }
 
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Validation Error", "Amount must be a valid number.");
         }
     }
 
-    private void saveTransaction(LocalDate date, double amount, String desc, String category) {
+    private boolean saveTransaction(LocalDate date, double amount, String desc, String category) {
         try {
             service.addTransaction(date, amount, desc, category);
             parentController.refreshData();
             closeWindow();
+            return true;
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to save transaction: " + e.getMessage());
+            return false;
         }
     }
 
@@ -3,6 +3,9 @@
 package com.expense.ui;
 
 import com.expense.model.Budget;
+import com.expense.model.BudgetSuggestion;
+import com.expense.model.Money;
+import com.expense.service.AsyncExpenseService;
 import com.expense.service.ExpenseService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,11 +18,11 @@ import javafx.scene.paint.Color;
 import javafx.util.Callback;
 import javafx.util.converter.DoubleStringConverter;
 
-import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class BudgetManagerController {
@@ -37,11 +40,11 @@ public class BudgetManagerController {
     @FXML private Label lblTotalSpent;
     @FXML private Label lblTotalRemaining;
 
-    private ExpenseService service;
+    private AsyncExpenseService service;
     private final ObservableList<Budget> budgetList = FXCollections.observableArrayList();
-    private final Map<String, Double> spendingCache = new HashMap<>();
+    private final Map<String, Long> spendingCache = new HashMap<>(); // paise
 
-    public void initData(ExpenseService service) {
+    public void initData(AsyncExpenseService service) {
         this.service = service;
         loadBudgets();
     }
@@ -61,25 +64,22 @@ public class BudgetManagerController {
             Budget budget = event.getRowValue();
             budget.setMonthlyLimit(event.getNewValue());
             if (budget.getId() != 0) {
-                try {
-                    service.updateBudget(budget);
-                    loadBudgets();
-                } catch (Exception e) {
+                FxAsync.onFx(service.run(s -> s.updateBudget(budget)), done -> loadBudgets(), e -> {
                     showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not update budget: " + e.getMessage());
                     loadBudgets();
-                }
+                });
             }
         });
 
         spentCol.setCellValueFactory(cell -> {
-            double spent = spendingCache.getOrDefault(cell.getValue().getCategory(), 0.0);
-            return new javafx.beans.property.SimpleDoubleProperty(spent).asObject();
+            long spent = spendingCache.getOrDefault(cell.getValue().getCategory(), 0L);
+            return new javafx.beans.property.SimpleDoubleProperty(Money.toMajor(spent)).asObject();
         });
 
         remainingCol.setCellValueFactory(cell -> {
-            double spent = spendingCache.getOrDefault(cell.getValue().getCategory(), 0.0);
-            double remaining = cell.getValue().getMonthlyLimit() - spent;
-            return new javafx.beans.property.SimpleDoubleProperty(remaining).asObject();
+            long spent = spendingCache.getOrDefault(cell.getValue().getCategory(), 0L);
+            long remaining = cell.getValue().getMonthlyLimitMinor() - spent;
+            return new javafx.beans.property.SimpleDoubleProperty(Money.toMajor(remaining)).asObject();
         });
 
         progressCol.setCellFactory(param -> new TableCell<>() {
@@ -95,9 +95,9 @@ public class BudgetManagerController {
                     setGraphic(null);
                 } else {
                     Budget budget = getTableView().getItems().get(getIndex());
-                    double spent = spendingCache.getOrDefault(budget.getCategory(), 0.0);
-                    double limit = budget.getMonthlyLimit();
-                    double progress = (limit > 0) ? spent / limit : 0.0;
+                    long spent = spendingCache.getOrDefault(budget.getCategory(), 0L);
+                    long limit = budget.getMonthlyLimitMinor();
+                    double progress = (limit > 0) ? (double) spent / limit : 0.0;
                     progressBar.setProgress(progress);
                     percentLabel.setText(String.format("%.0f%%", progress * 100));
                     if (progress > 1.0) {
@@ -132,33 +132,38 @@ public class BudgetManagerController {
     }
 
     private void loadBudgets() {
-        try {
+        // Both queries run in parallel; the table is updated once both are back
+        CompletableFuture<List<Budget>> budgets = service.supply(ExpenseService::getAllBudgets);
+        CompletableFuture<Map<String, Long>> currentMonthSpending = service.supply(ExpenseService::getMonthToDateSpending);
+        FxAsync.onFx(CompletableFuture.allOf(budgets, currentMonthSpending), done -> {
             spendingCache.clear();
-            List<Budget> budgets = service.getAllBudgets();
-            Map<String, Double> currentMonthSpending = service.getCategoryTotalsForMonth(YearMonth.now());
-            spendingCache.putAll(currentMonthSpending);
-            budgetList.setAll(budgets);
+            spendingCache.putAll(currentMonthSpending.join());
+            budgetList.setAll(budgets.join());
             updateSummary();
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Could not load budget data: " + e.getMessage());
-        }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Database Error", "Could not load budget data: " + e.getMessage()));
     }
 
     private void updateSummary() {
-        double totalBudget = budgetList.stream().mapToDouble(Budget::getMonthlyLimit).sum();
-        double totalSpent = spendingCache.values().stream().mapToDouble(Double::doubleValue).sum();
-        double totalRemaining = totalBudget - totalSpent;
+        long totalBudget = budgetList.stream().mapToLong(Budget::getMonthlyLimitMinor).sum();
+        long totalSpent = spendingCache.values().stream().mapToLong(Long::longValue).sum();
+        long totalRemaining = totalBudget - totalSpent;
 
-        lblTotalBudget.setText(String.format("₹%.2f", totalBudget));
-        lblTotalSpent.setText(String.format("₹%.2f", totalSpent));
-        lblTotalRemaining.setText(String.format("₹%.2f", totalRemaining));
+        lblTotalBudget.setText(Money.format(totalBudget));
+        lblTotalSpent.setText(Money.format(totalSpent));
+        lblTotalRemaining.setText(Money.format(totalRemaining));
         lblTotalRemaining.setTextFill(totalRemaining < 0 ? Color.RED : Color.GREEN);
     }
 
     @FXML
     public void onSuggestBudgets() {
-        try {
-            List<Budget> suggestions = service.getBudgetSuggestions();
+        ChoiceDialog<BudgetSuggestion.Level> levelDialog = new ChoiceDialog<>(BudgetSuggestion.Level.MOST_MONTHS, BudgetSuggestion.Level.values());
+        levelDialog.setTitle("Suggest Budgets");
+        levelDialog.setHeaderText("Suggest limits from your last two years of spending, adjusted for its trend.");
+        levelDialog.setContentText("Cover spending in:");
+        Optional<BudgetSuggestion.Level> level = levelDialog.showAndWait();
+        if (level.isEmpty()) return;
+
+        FxAsync.onFx(service.supply(s -> s.getBudgetSuggestions(level.get())), suggestions -> {
             List<String> existingCategories = budgetList.stream().map(Budget::getCategory).collect(Collectors.toList());
             suggestions.removeIf(suggestion -> existingCategories.contains(suggestion.getCategory()));
 
@@ -167,9 +172,7 @@ public class BudgetManagerController {
             } else {
                 budgetList.addAll(suggestions);
             }
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Could not generate budget suggestions: " + e.getMessage());
-        }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Could not generate budget suggestions: " + e.getMessage()));
     }
 
     // --- THIS METHOD IS UPGRADED ---
@@ -179,13 +182,10 @@ public class BudgetManagerController {
 
         // If a new suggestion is selected in the table, save that one directly.
         if (selected != null && selected.getId() == 0) {
-            try {
-                service.addBudget(selected);
+            FxAsync.onFx(service.run(s -> s.addBudget(selected)), done -> {
                 loadBudgets();
                 clearForm();
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save the selected budget: " + e.getMessage());
-            }
+            }, e -> showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save the selected budget: " + e.getMessage()));
             return;
         }
 
@@ -202,13 +202,13 @@ public class BudgetManagerController {
             double limit = Double.parseDouble(limitText);
             if (limit <= 0) throw new NumberFormatException();
 
-            service.addBudget(new Budget(cat, limit));
-            loadBudgets();
-            clearForm();
+            Budget budget = new Budget(cat, limit);
+            FxAsync.onFx(service.run(s -> s.addBudget(budget)), done -> {
+                loadBudgets();
+                clearForm();
+            }, e -> showAlert(Alert.AlertType.ERROR, "Database Error", "Could not save the budget: " + e.getMessage()));
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Validation Error", "Please enter a valid, positive number for the limit.");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Could not save the budget: " + e.getMessage());
         }
     }
 
@@ -227,12 +227,9 @@ public class BudgetManagerController {
         Optional<ButtonType> result = confirm.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                service.deleteBudget(budgetToDelete.getId());
-                loadBudgets();
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Database Error", "Could not delete budget: " + e.getMessage());
-            }
+            FxAsync.onFx(service.run(s -> s.deleteBudget(budgetToDelete.getId())),
+                    done -> loadBudgets(),
+                    e -> showAlert(Alert.AlertType.ERROR, "Database Error", "Could not delete budget: " + e.getMessage()));
         }
     }
 
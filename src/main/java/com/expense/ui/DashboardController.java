@@ -4,7 +4,7 @@ package com.expense.ui;
 
 import com.expense.model.Persona;
 import com.expense.model.Transaction;
-import com.expense.service.ExpenseService;
+import com.expense.service.AsyncExpenseService;
 import com.expense.util.CategoryIconManager;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -13,7 +13,6 @@ import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -25,9 +24,9 @@ import javafx.util.Duration;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.time.YearMonth;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class DashboardController {
 
@@ -39,7 +38,7 @@ public class DashboardController {
     @FXML private TableColumn<Transaction, Double> colAmount;
     @FXML private VBox personaContainer;
 
-    private ExpenseService service;
+    private AsyncExpenseService service;
     private final ObservableList<Transaction> recentTransactionsList = FXCollections.observableArrayList();
 
     @FXML
@@ -47,7 +46,7 @@ public class DashboardController {
         setupRecentTransactionsTable();
     }
 
-    public void setService(ExpenseService service) {
+    public void setService(AsyncExpenseService service) {
         this.service = service;
     }
 
@@ -83,45 +82,41 @@ public class DashboardController {
 
     public void refreshData() {
         if (service == null) return;
-        try {
-            double currentMonthSpending = service.getTotalForMonth(YearMonth.now());
-            animateNumberLabel(lblCurrentMonthSpending, currentMonthSpending);
+        // Each panel is filled in as soon as its own query returns
+        FxAsync.onFx(service.supply(s -> s.getTotalForMonth(YearMonth.now())),
+                total -> animateNumberLabel(lblCurrentMonthSpending, total),
+                this::showLoadError);
 
-            Map<String, Double> categoryTotals = service.getCategoryTotalsForMonth(YearMonth.now());
+        FxAsync.onFx(service.supply(s -> s.getCategoryTotalsForMonth(YearMonth.now())), categoryTotals -> {
             String topCategory = categoryTotals.entrySet().stream()
                     .max(Map.Entry.comparingByValue())
                     .map(Map.Entry::getKey).orElse("N/A");
             lblTopCategory.setText(topCategory);
+        }, this::showLoadError);
 
-            List<Transaction> recent = service.getRecentTransactions(5);
-            recentTransactionsList.setAll(recent);
+        FxAsync.onFx(service.supply(s -> s.getRecentTransactions(5)), recentTransactionsList::setAll, this::showLoadError);
 
-            generateAndDisplayPersona();
+        generateAndDisplayPersona();
+    }
 
-        } catch (Exception e) {
-            lblCurrentMonthSpending.setText("Error");
-            lblTopCategory.setText("Error");
-            e.printStackTrace();
-        }
+    private void showLoadError(Throwable e) {
+        lblCurrentMonthSpending.setText("Error");
+        lblTopCategory.setText("Error");
+        e.printStackTrace();
     }
 
     private void generateAndDisplayPersona() {
-        ProgressIndicator pi = new ProgressIndicator();
-        // Keep the title, replace everything else with the loading indicator
-        personaContainer.getChildren().setAll(
-                personaContainer.getChildren().get(0),
-                pi
-        );
-
-        Task<Optional<Persona>> personaTask = new Task<>() {
-            @Override
-            protected Optional<Persona> call() throws Exception {
-                return service.generatePersona();
-            }
-        };
+        // Usually complete already; the service only clusters again once enough transactions have changed
+        CompletableFuture<Optional<Persona>> persona = service.sync().getPersona();
+        if (!persona.isDone() && personaContainer.getChildren().size() <= 1) {
+            // Nothing shown yet: keep the title, and show the loading indicator until the first persona arrives
+            personaContainer.getChildren().setAll(
+                    personaContainer.getChildren().get(0),
+                    new ProgressIndicator()
+            );
+        }
 
-        personaTask.setOnSucceeded(e -> {
-            Optional<Persona> personaOpt = personaTask.getValue();
+        FxAsync.onFx(persona, personaOpt -> {
             if (personaOpt.isPresent()) {
                 displayPersona(personaOpt.get());
             } else {
@@ -130,17 +125,13 @@ public class DashboardController {
                         new Label("Not enough data to generate a persona.\n(Requires 30+ transactions)")
                 );
             }
-        });
-
-        personaTask.setOnFailed(e -> {
+        }, e -> {
             personaContainer.getChildren().setAll(
                     personaContainer.getChildren().get(0),
                     new Label("Error generating persona.")
             );
-            e.getSource().getException().printStackTrace();
+            e.printStackTrace();
         });
-
-        new Thread(personaTask).start();
     }
 
     private void displayPersona(Persona persona) {
@@ -0,0 +1,37 @@
+// File: src/main/java/com/expense/ui/FxAsync.java
+
+package com.expense.ui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Hands the outcome of a background {@link CompletableFuture} back to the JavaFX Application Thread,
+ * where it is safe to touch controls.
+ */
+final class FxAsync {
+    static final Executor FX_THREAD = Platform::runLater;
+
+    private FxAsync() {}
+
+    static <T> CompletableFuture<Void> onFx(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return future.handleAsync((value, error) -> {
+            if (error != null) onError.accept(unwrap(error));
+            else onSuccess.accept(value);
+            return null;
+        }, FX_THREAD);
+    }
+
+    /** The exception the service actually threw, without the CompletableFuture wrappers. */
+    static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
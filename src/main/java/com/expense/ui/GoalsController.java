@@ -3,6 +3,7 @@
 package com.expense.ui;
 
 import com.expense.model.SavingsGoal;
+import com.expense.service.AsyncExpenseService;
 import com.expense.service.ExpenseService;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
@@ -13,10 +14,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Optional;
 
 public class GoalsController {
@@ -26,18 +25,17 @@ public class GoalsController {
     @FXML private TextField targetAmountField;
     @FXML private DatePicker targetDateField;
 
-    private ExpenseService service;
+    private AsyncExpenseService service;
 
-    public void setService(ExpenseService service) {
+    public void setService(AsyncExpenseService service) {
         this.service = service;
     }
 
     public void refreshGoals() {
         if (service == null) return;
 
-        goalsContainer.getChildren().clear();
-        try {
-            List<SavingsGoal> goals = service.getAllSavingsGoals();
+        FxAsync.onFx(service.supply(ExpenseService::getAllSavingsGoals), goals -> {
+            goalsContainer.getChildren().clear();
             if (goals.isEmpty()) {
                 Label placeholder = new Label("You haven't set any savings goals yet. Create one below!");
                 goalsContainer.getChildren().add(placeholder);
@@ -46,10 +44,10 @@ public class GoalsController {
                     goalsContainer.getChildren().add(createGoalNode(goal));
                 }
             }
-        } catch (SQLException e) {
-            goalsContainer.getChildren().add(new Label("Error loading goals: " + e.getMessage()));
+        }, e -> {
+            goalsContainer.getChildren().setAll(new Label("Error loading goals: " + e.getMessage()));
             e.printStackTrace();
-        }
+        });
     }
 
     private VBox createGoalNode(SavingsGoal goal) {
@@ -127,13 +125,12 @@ public class GoalsController {
                 return;
             }
             SavingsGoal newGoal = new SavingsGoal(name, targetAmount, targetDate);
-            service.addSavingsGoal(newGoal);
-            refreshGoals();
-            clearForm();
+            FxAsync.onFx(service.run(s -> s.addSavingsGoal(newGoal)), done -> {
+                refreshGoals();
+                clearForm();
+            }, e -> showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save the new goal: " + e.getMessage()));
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Invalid Input", "Please enter a valid number for the Target Amount.");
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Save Failed", "Could not save the new goal: " + e.getMessage());
         }
     }
     private void handleAddFunds(SavingsGoal goal, String amountStr) {
@@ -147,12 +144,11 @@ public class GoalsController {
                 showAlert(Alert.AlertType.ERROR, "Invalid Input", "Amount must be positive.");
                 return;
             }
-            service.addContributionToGoal(goal.getId(), amountToAdd);
-            refreshGoals();
+            FxAsync.onFx(service.run(s -> s.addContributionToGoal(goal.getId(), amountToAdd)),
+                    done -> refreshGoals(),
+                    e -> showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not add funds to goal: " + e.getMessage()));
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Invalid Input", "Please enter a valid number.");
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not add funds to goal: " + e.getMessage());
         }
     }
     private void handleDeleteGoal(SavingsGoal goal) {
@@ -162,12 +158,9 @@ public class GoalsController {
         confirm.setContentText("Are you sure? This action cannot be undone.");
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                service.deleteSavingsGoal(goal.getId());
-                refreshGoals();
-            } catch (SQLException e) {
-                showAlert(Alert.AlertType.ERROR, "Delete Failed", "Could not delete goal: " + e.getMessage());
-            }
+            FxAsync.onFx(service.run(s -> s.deleteSavingsGoal(goal.getId())),
+                    done -> refreshGoals(),
+                    e -> showAlert(Alert.AlertType.ERROR, "Delete Failed", "Could not delete goal: " + e.getMessage()));
         }
     }
     private void clearForm() {
@@ -4,19 +4,23 @@ package com.expense.ui;
 
 import com.expense.model.Budget;
 import com.expense.model.Transaction;
-import com.expense.model.TransactionData;
+import com.expense.model.TransactionFilter;
 import com.expense.ml.ExpensePredictor;
 import com.expense.ml.WekaPredictor;
 import com.expense.ml.WekaTrainer;
+import com.expense.service.AsyncExpenseService;
 import com.expense.service.ExpenseService;
 import com.expense.util.DataExporter;
 import com.expense.util.DataImporter;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
@@ -28,6 +32,7 @@ import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.util.converter.DoubleStringConverter;
 import javafx.util.converter.LocalDateStringConverter;
 
@@ -36,13 +41,16 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class MainController {
@@ -52,6 +60,8 @@ public class MainController {
     @FXML private TableColumn<Transaction, Double> colAmount;
     @FXML private TableColumn<Transaction, String> colDesc;
     @FXML private TableColumn<Transaction, String> colCat;
+    @FXML private Label lblTransactionCount;
+    @FXML private TextField txtSearch;
     @FXML private PieChart pieChart;
     @FXML private BarChart<String, Number> barChart;
     @FXML private CategoryAxis xAxis;
@@ -67,13 +77,26 @@ public class MainController {
     @FXML private GoalsController goalsController;
 
     private ExpenseService service;
+    private AsyncExpenseService asyncService; // everything the FX thread asks of the database goes through here
     private WekaPredictor categorizer;
     private ExpensePredictor expensePredictor;
     private final ObservableList<Transaction> transactionList = FXCollections.observableArrayList();
 
+    // The table is filled a page at a time as the user scrolls, never with the whole history
+    private static final int PAGE_SIZE = 200;
+    private boolean hasMorePages = true;
+    private int totalTransactionCount = 0;
+
+    // Searching replaces the paged listing with the best matches; the query runs once typing pauses
+    private static final int SEARCH_LIMIT = 500;
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(250));
+    private int listingGeneration = 0;
+    private boolean pageLoading = false;
+
     @FXML
     public void initialize() {
         this.service = new ExpenseService();
+        this.asyncService = new AsyncExpenseService(service);
         this.categorizer = new WekaPredictor();
         this.expensePredictor = new ExpensePredictor();
 
@@ -83,24 +106,37 @@ public class MainController {
                 .collect(Collectors.toList());
         xAxis.setCategories(FXCollections.observableArrayList(monthNames));
 
-        try {
-            service.init();
-            int itemsProcessed = service.processRecurringTransactions();
+        setupTable();
+
+        // Opening the store (migrations, caches, the change-log catch-up) and adding due recurring
+        // transactions can take a while on a large ledger; keep the window responsive meanwhile, and
+        // keep everything that would touch the service disabled until it is ready
+        setStartingUp(true);
+        FxAsync.onFx(asyncService.supply(s -> {
+            s.init();
+            return s.processRecurringTransactions();
+        }), itemsProcessed -> {
+            setStartingUp(false);
+            dashboardController.setService(asyncService);
+            goalsController.setService(asyncService);
+            service.scheduleBackups();
+            refreshData();
             if (itemsProcessed > 0) {
                 showAlert(Alert.AlertType.INFORMATION, "Transactions Auto-Added",
                         itemsProcessed + " recurring transaction(s) were automatically added to your log.");
             }
-        } catch (Exception e) {
+        }, e -> {
+            prog.setVisible(false);
             showAlert(Alert.AlertType.ERROR, "Fatal Error", "Could not initialize application: " + e.getMessage());
             e.printStackTrace();
             Platform.exit();
-        }
-
-        dashboardController.setService(service);
-        goalsController.setService(service);
+        });
+    }
 
-        setupTable();
-        refreshData();
+    private void setStartingUp(boolean startingUp) {
+        prog.setVisible(startingUp);
+        mainTabPane.setDisable(startingUp);
+        mainTabPane.getParent().lookupAll(".top-bar-button").forEach(button -> button.setDisable(startingUp));
     }
 
     // ==========================================================================
@@ -113,12 +149,14 @@ public class MainController {
             return;
         }
 
-        try {
-            int previousYear = selectedYear - 1;
+        int previousYear = selectedYear - 1;
 
-            // 1. Fetch data for both years
-            Map<String, Double> currentYearTotals = service.getMonthlyTotalsForYear(selectedYear);
-            Map<String, Double> previousYearTotals = service.getMonthlyTotalsForYear(previousYear);
+        // 1. Fetch data for both years, in parallel and off the FX thread
+        CompletableFuture<Map<String, Double>> currentYearFuture = asyncService.supply(s -> s.getMonthlyTotalsForYear(selectedYear));
+        CompletableFuture<Map<String, Double>> previousYearFuture = asyncService.supply(s -> s.getMonthlyTotalsForYear(previousYear));
+        FxAsync.onFx(CompletableFuture.allOf(currentYearFuture, previousYearFuture), done -> {
+            Map<String, Double> currentYearTotals = currentYearFuture.join();
+            Map<String, Double> previousYearTotals = previousYearFuture.join();
 
             // 2. Create a data series for each year
             XYChart.Series<String, Number> currentYearSeries = new XYChart.Series<>();
@@ -151,11 +189,10 @@ public class MainController {
             barChart.setAnimated(false);
             barChart.getData().setAll(currentYearSeries, previousYearSeries);
             barChart.setTitle("Monthly Comparison: " + previousYear + " vs " + selectedYear);
-
-        } catch (Exception e) {
+        }, e -> {
             showAlert(Alert.AlertType.ERROR, "Chart Error", "Could not load data for Bar Chart: " + e.getMessage());
             e.printStackTrace();
-        }
+        });
     }
 
     // --- All other methods remain correct ---
@@ -186,49 +223,128 @@ public class MainController {
         colCat.setCellValueFactory(cell -> cell.getValue().categoryProperty());
         colCat.setCellFactory(TextFieldTableCell.forTableColumn());
         colCat.setOnEditCommit(event -> {
-            Transaction transaction = event.getRowValue();
-            String oldCategory = transaction.getCategory();
             String newCategory = event.getNewValue();
-            if (newCategory != null && !newCategory.equalsIgnoreCase(oldCategory)) {
-                transaction.setCategory(newCategory);
-                updateTransactionAndRefresh(transaction);
-                service.logCorrection(transaction.getDescription(), newCategory);
-                onRetrainModel();
-                System.out.println("Correction logged and auto-retraining started for: '" + transaction.getDescription() + "' -> '" + newCategory + "'");
+            // Editing one row of a multi-row selection recategorizes the whole selection at once
+            List<Transaction> targets = table.getSelectionModel().getSelectedItems().contains(event.getRowValue())
+                    ? new ArrayList<>(table.getSelectionModel().getSelectedItems())
+                    : List.of(event.getRowValue());
+            if (newCategory == null || newCategory.isBlank()) {
+                table.refresh();
+                return;
             }
+            List<Integer> ids = new ArrayList<>();
+            List<String> descriptions = new ArrayList<>();
+            for (Transaction t : targets) {
+                if (newCategory.equalsIgnoreCase(t.getCategory())) continue;
+                ids.add(t.getId());
+                descriptions.add(t.getDescription());
+            }
+            if (ids.isEmpty()) return;
+            FxAsync.onFx(asyncService.supply(s -> {
+                int changed = s.recategorizeTransactions(ids, newCategory);
+                s.logCorrections(descriptions, newCategory);
+                return changed;
+            }), changed -> {
+                refreshData();
+                onRetrainModel();
+                System.out.println("Logged " + descriptions.size() + " correction(s) to '" + newCategory + "' and started auto-retraining.");
+            }, e -> {
+                showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not change the category: " + e.getMessage());
+                refreshData();
+            });
         });
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         table.setItems(transactionList);
+        installScrollPaging();
+
+        searchDelay.setOnFinished(event -> reloadTransactions());
+        txtSearch.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
     }
-    public void refreshData() {
-        try {
-            transactionList.setAll(service.getAll());
-            populateSelectors();
-            Platform.runLater(() -> {
-                dashboardController.refreshData();
-                goalsController.refreshGoals();
-            });
-            onRefreshPie();
-            onRefreshBar();
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Could not load data: " + e.getMessage());
+    private void installScrollPaging() {
+        // The scroll bars only exist once the skin is created
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                    bar.valueProperty().addListener((o, oldVal, newVal) -> {
+                        if (newVal.doubleValue() >= bar.getMax() * 0.95) loadNextPage();
+                    });
+                }
+            }
+        });
+    }
+    private void reloadTransactions() {
+        // Results of an older reload or search that arrive late are dropped
+        int generation = ++listingGeneration;
+        String query = txtSearch.getText();
+        if (query != null && !query.isBlank()) {
+            hasMorePages = false;
+            FxAsync.onFx(asyncService.supply(s -> s.search(query, TransactionFilter.none(), SEARCH_LIMIT)), matches -> {
+                if (generation != listingGeneration) return;
+                transactionList.setAll(matches);
+                lblTransactionCount.setText(matches.size() == SEARCH_LIMIT
+                        ? String.format("Showing the best %d matches", SEARCH_LIMIT)
+                        : String.format("%d matching transactions", matches.size()));
+            }, e -> showAlert(Alert.AlertType.ERROR, "Search Failed", "Could not search transactions: " + e.getMessage()));
+            return;
         }
+        pageLoading = true;
+        CompletableFuture<List<Transaction>> firstPage = asyncService.supply(s -> s.getPage(null, null, PAGE_SIZE, TransactionFilter.none()));
+        CompletableFuture<Integer> count = asyncService.supply(s -> s.countTransactions(TransactionFilter.none()));
+        FxAsync.onFx(CompletableFuture.allOf(firstPage, count), done -> {
+            if (generation != listingGeneration) return;
+            pageLoading = false;
+            transactionList.setAll(firstPage.join());
+            hasMorePages = firstPage.join().size() == PAGE_SIZE;
+            totalTransactionCount = count.join();
+            updateTransactionCountLabel();
+        }, e -> {
+            pageLoading = false;
+            showAlert(Alert.AlertType.ERROR, "Error", "Could not load transactions: " + e.getMessage());
+        });
+    }
+    private void loadNextPage() {
+        if (!hasMorePages || pageLoading || transactionList.isEmpty()) return;
+        Transaction last = transactionList.get(transactionList.size() - 1);
+        int generation = listingGeneration;
+        pageLoading = true;
+        FxAsync.onFx(asyncService.supply(s -> s.getPage(last.getDate().toEpochDay(), last.getId(), PAGE_SIZE, TransactionFilter.none())), page -> {
+            if (generation != listingGeneration) return;
+            pageLoading = false;
+            transactionList.addAll(page);
+            hasMorePages = page.size() == PAGE_SIZE;
+            updateTransactionCountLabel();
+        }, e -> {
+            pageLoading = false;
+            showAlert(Alert.AlertType.ERROR, "Error", "Could not load more transactions: " + e.getMessage());
+        });
+    }
+    private void updateTransactionCountLabel() {
+        lblTransactionCount.setText(String.format("Showing %d of %d transactions", transactionList.size(), totalTransactionCount));
+    }
+    /** Reloads every view. Returns immediately; each view fills in when its own queries complete. */
+    public void refreshData() {
+        reloadTransactions();
+        populateSelectors();
+        dashboardController.refreshData();
+        goalsController.refreshGoals();
     }
     private void updateTransactionAndRefresh(Transaction t) {
-        try {
-            service.updateTransaction(t);
-            refreshData();
-        } catch (Exception e) {
+        FxAsync.onFx(asyncService.run(s -> s.updateTransaction(t)), done -> refreshData(), e -> {
             showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not update transaction: " + e.getMessage());
             refreshData();
-        }
+        });
     }
     private void populateSelectors() {
+        FxAsync.onFx(asyncService.supply(ExpenseService::getTransactionYears), transactionYears -> {
+            populateSelectors(transactionYears);
+            onRefreshPie();
+            onRefreshBar();
+        }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Could not load data: " + e.getMessage()));
+    }
+    private void populateSelectors(List<Integer> transactionYears) {
         Integer selectedBarYear = barYearCombo.getValue();
         Integer selectedPieYear = pieYearCombo.getValue();
-        ObservableList<Integer> years = transactionList.stream()
-                .map(t -> t.getDate().getYear())
-                .distinct().sorted()
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Integer> years = FXCollections.observableArrayList(transactionYears);
         barYearCombo.setItems(years);
         if (selectedBarYear != null && years.contains(selectedBarYear)) {
             barYearCombo.setValue(selectedBarYear);
@@ -270,7 +386,7 @@ public class MainController {
             stage.setTitle("Budget Manager");
             stage.setScene(new Scene(loader.load()));
             BudgetManagerController controller = loader.getController();
-            controller.initData(service);
+            controller.initData(asyncService);
             stage.showAndWait();
             refreshData();
         } catch (IOException e) {
@@ -296,32 +412,70 @@ public class MainController {
         }
     }
     @FXML private void onDeleteTransaction() {
-        Transaction selected = table.getSelectionModel().getSelectedItem();
-        if (selected == null) {
+        List<Transaction> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
             showAlert(Alert.AlertType.WARNING, "No Selection", "Please select a transaction to delete.");
             return;
         }
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Deletion");
-        confirm.setHeaderText("Delete transaction: '" + selected.getDescription() + "'?");
+        confirm.setHeaderText(selected.size() == 1
+                ? "Delete transaction: '" + selected.get(0).getDescription() + "'?"
+                : "Delete the " + selected.size() + " selected transactions?");
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                service.deleteTransaction(selected.getId());
-                refreshData();
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Deletion Failed", "Could not delete transaction: " + e.getMessage());
-            }
+            List<Integer> ids = selected.stream().map(Transaction::getId).collect(Collectors.toList());
+            FxAsync.onFx(asyncService.supply(s -> s.deleteTransactions(ids)),
+                    deleted -> refreshData(),
+                    e -> showAlert(Alert.AlertType.ERROR, "Deletion Failed", "Could not delete transactions: " + e.getMessage()));
         }
     }
+    @FXML private void onRecategorizeMatches() {
+        String query = txtSearch.getText();
+        if (query == null || query.isBlank()) {
+            showAlert(Alert.AlertType.WARNING, "No Search", "Search for the transactions to recategorize first.");
+            return;
+        }
+        FxAsync.onFx(asyncService.supply(ExpenseService::getAllCategories), categories -> {
+            Optional<String> category = chooseCategory(categories, "Recategorize Matches", "Move every transaction matching '" + query.trim() + "' to:", null);
+            if (category.isEmpty()) return;
+            FxAsync.onFx(asyncService.supply(s -> s.recategorizeMatching(query, category.get())), changed -> {
+                refreshData();
+                showAlert(Alert.AlertType.INFORMATION, "Recategorized", "Moved " + changed + " transaction(s) to " + category.get() + ".");
+            }, e -> showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not recategorize transactions: " + e.getMessage()));
+        }, this::showCategoryLoadError);
+    }
+    @FXML private void onMoveCategory() {
+        Transaction selected = table.getSelectionModel().getSelectedItem();
+        FxAsync.onFx(asyncService.supply(ExpenseService::getAllCategories), categories -> {
+            Optional<String> from = chooseCategory(categories, "Move Category", "Move every transaction, budget and subscription of:", selected == null ? null : selected.getCategory());
+            if (from.isEmpty()) return;
+            Optional<String> to = chooseCategory(categories, "Move Category", "Into category:", null);
+            if (to.isEmpty() || to.get().equals(from.get())) return;
+            FxAsync.onFx(asyncService.supply(s -> s.moveCategory(from.get(), to.get())), moved -> {
+                refreshData();
+                showAlert(Alert.AlertType.INFORMATION, "Category Moved", "Moved " + moved + " transaction(s) from " + from.get() + " to " + to.get() + ".");
+            }, e -> showAlert(Alert.AlertType.ERROR, "Update Failed", "Could not move the category: " + e.getMessage()));
+        }, this::showCategoryLoadError);
+    }
+    /** Asks for one of the categories, loaded beforehand off the FX thread. */
+    private Optional<String> chooseCategory(List<String> categories, String title, String header, String preselected) {
+        if (categories.isEmpty()) return Optional.empty();
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(preselected != null && categories.contains(preselected) ? preselected : categories.get(0), categories);
+        dialog.setTitle(title);
+        dialog.setHeaderText(header);
+        return dialog.showAndWait();
+    }
+    private void showCategoryLoadError(Throwable e) {
+        showAlert(Alert.AlertType.ERROR, "Error", "Could not load categories: " + e.getMessage());
+    }
     @FXML private void onPieChartFilterChanged() { onRefreshPie(); }
     @FXML private void onBarYearSelected() { onRefreshBar(); }
     private void onRefreshPie() {
         Integer year = pieYearCombo.getValue();
         Month month = pieMonthCombo.getValue();
         if (year == null || month == null) return;
-        try {
-            Map<String, Double> categoryTotals = service.getCategoryTotalsForMonth(YearMonth.of(year, month));
+        FxAsync.onFx(asyncService.supply(s -> s.getCategoryTotalsForMonth(YearMonth.of(year, month))), categoryTotals -> {
             ObservableList<PieChart.Data> pieChartData = categoryTotals.entrySet().stream()
                     .map(entry -> new PieChart.Data(entry.getKey() + String.format(" (₹%.2f)", entry.getValue()), entry.getValue()))
                     .collect(Collectors.toCollection(FXCollections::observableArrayList));
@@ -330,9 +484,7 @@ public class MainController {
             }
             pieChart.setData(pieChartData);
             pieChart.setTitle("Expenses for " + month.name() + " " + year);
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Chart Error", "Could not load data for Pie Chart: " + e.getMessage());
-        }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Chart Error", "Could not load data for Pie Chart: " + e.getMessage()));
     }
     @FXML private void onExport() {
         FileChooser fileChooser = new FileChooser();
@@ -341,13 +493,9 @@ public class MainController {
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
         File file = fileChooser.showSaveDialog(mainTabPane.getScene().getWindow());
         if (file != null) {
-            try {
-                List<Transaction> allTransactions = service.getAll();
-                DataExporter.exportTransactions(file.getAbsolutePath(), allTransactions);
-                showAlert(Alert.AlertType.INFORMATION, "Export Successful", "Exported " + allTransactions.size() + " transactions.");
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Export Failed", "Could not export data: " + e.getMessage());
-            }
+            FxAsync.onFx(asyncService.supply(s -> DataExporter.exportTransactions(file.getAbsolutePath(), s)),
+                    exported -> showAlert(Alert.AlertType.INFORMATION, "Export Successful", "Exported " + exported + " transactions."),
+                    e -> showAlert(Alert.AlertType.ERROR, "Export Failed", "Could not export data: " + e.getMessage()));
         }
     }
     @FXML private void onImport() {
@@ -370,6 +518,58 @@ public class MainController {
             new Thread(importTask).start();
         }
     }
+    @FXML private void onBackup() {
+        prog.setVisible(true);
+        FxAsync.onFx(service.backupNow(), snapshot -> {
+            prog.setVisible(false);
+            showAlert(Alert.AlertType.INFORMATION, "Backup Complete", "Saved a snapshot to " + snapshot.toAbsolutePath());
+        }, e -> {
+            prog.setVisible(false);
+            showAlert(Alert.AlertType.ERROR, "Backup Failed", "Could not back up the database: " + e.getMessage());
+        });
+    }
+    @FXML private void onRestore() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Restore from Backup");
+        File backupDir = service.getBackupDirectory().toFile();
+        if (backupDir.isDirectory()) fileChooser.setInitialDirectory(backupDir);
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Database Backups", "*.db"));
+        File file = fileChooser.showOpenDialog(mainTabPane.getScene().getWindow());
+        if (file == null) return;
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Confirm Restore");
+        confirmation.setHeaderText("Replace all current data with " + file.getName() + "?");
+        confirmation.setContentText("Anything recorded after this backup was taken will be lost.");
+        Optional<ButtonType> result = confirmation.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) return;
+        prog.setVisible(true);
+        FxAsync.onFx(asyncService.run(s -> s.restoreBackup(file.toPath())), done -> {
+            prog.setVisible(false);
+            refreshData();
+            showAlert(Alert.AlertType.INFORMATION, "Restore Complete", "Restored data from " + file.getName() + ".");
+        }, e -> {
+            prog.setVisible(false);
+            showAlert(Alert.AlertType.ERROR, "Restore Failed", "Could not restore the backup: " + e.getMessage());
+        });
+    }
+    @FXML private void onArchive() {
+        String cutoff = service.getArchiveCutoff().format(DateTimeFormatter.ofPattern("d MMM yyyy"));
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Confirm Archive");
+        confirmation.setHeaderText("Archive all transactions dated before " + cutoff + "?");
+        confirmation.setContentText("They still count in yearly charts, averages and exports, but leave the transaction list and search and can no longer be edited.");
+        Optional<ButtonType> result = confirmation.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) return;
+        prog.setVisible(true);
+        FxAsync.onFx(asyncService.supply(ExpenseService::archiveOldTransactions), moved -> {
+            prog.setVisible(false);
+            refreshData();
+            showAlert(Alert.AlertType.INFORMATION, "Archive Complete", moved == 0 ? "Nothing older than " + cutoff + " to archive." : "Archived " + moved + " transactions.");
+        }, e -> {
+            prog.setVisible(false);
+            showAlert(Alert.AlertType.ERROR, "Archive Failed", "Could not archive old transactions: " + e.getMessage());
+        });
+    }
     @FXML private void onRetrainModel() {
         prog.setVisible(true);
         btnRetrain.setDisable(true);
@@ -418,12 +618,11 @@ public class MainController {
             @Override
             protected String call() throws Exception {
                 updateMessage("Fetching training data...");
-                List<TransactionData> trainingData = service.getTransactionDataForRegression();
-                if (trainingData.size() < 10) {
+                if (service.countTransactions(TransactionFilter.none()) < 10) {
                     return "Not enough transaction data to train the prediction model (minimum 10 required).";
                 }
                 updateMessage("Training regression model...");
-                expensePredictor.train(trainingData);
+                expensePredictor.train(service::forEachTransactionData);
                 updateMessage("Analyzing historical data...");
                 Map<String, Integer> categoryCodeMap = service.getCategoryCodeMap();
                 List<Budget> budgets = service.getAllBudgets();
@@ -2,6 +2,8 @@
 
 package com.expense.ui;
 
+import com.expense.model.Money;
+import com.expense.model.Transaction;
 import com.expense.service.ExpenseService;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
@@ -28,7 +30,7 @@ public class SplitTransactionController {
     @FXML private Button saveButton;
 
     private ExpenseService service;
-    private double totalAmount;
+    private long totalAmountMinor; // paise, so the split check below is exact
     private LocalDate date;
     private String description;
 
@@ -37,11 +39,11 @@ public class SplitTransactionController {
 
     public void initData(ExpenseService service, double totalAmount, LocalDate date, String description, List<String> suggestedCategories) {
         this.service = service;
-        this.totalAmount = totalAmount;
+        this.totalAmountMinor = Money.toMinor(totalAmount);
         this.date = date;
         this.description = description;
 
-        totalAmountLabel.setText(String.format("₹%.2f", totalAmount));
+        totalAmountLabel.setText(Money.format(totalAmountMinor));
         updateRemainingAmount();
 
         for (String category : suggestedCategories) {
@@ -61,27 +63,27 @@ public class SplitTransactionController {
     }
 
     private void updateRemainingAmount() {
-        double allocatedAmount = 0;
+        long allocatedAmount = 0;
         for (TextField field : categoryFields.values()) {
             try {
                 if (!field.getText().trim().isEmpty()) {
-                    allocatedAmount += Double.parseDouble(field.getText().trim());
+                    allocatedAmount += Money.parse(field.getText());
                 }
             } catch (NumberFormatException e) {
                 // Ignore invalid numbers during typing
             }
         }
-        double remaining = totalAmount - allocatedAmount;
-        remainingAmountLabel.setText(String.format("₹%.2f", remaining));
+        long remaining = totalAmountMinor - allocatedAmount;
+        remainingAmountLabel.setText(Money.format(remaining));
 
         // This line will now work correctly because saveButton is no longer null
-        saveButton.setDisable(Math.abs(remaining) > 0.001);
+        saveButton.setDisable(remaining != 0);
     }
 
     @FXML
     private void onSaveSplit() {
         List<SplitItem> splits = new ArrayList<>();
-        double totalSplitAmount = 0;
+        long totalSplitAmount = 0;
 
         for (Map.Entry<String, TextField> entry : categoryFields.entrySet()) {
             String category = entry.getKey();
@@ -89,7 +91,7 @@ public class SplitTransactionController {
             if (amountStr.isEmpty()) continue;
 
             try {
-                double amount = Double.parseDouble(amountStr);
+                long amount = Money.parse(amountStr);
                 if (amount > 0) {
                     splits.add(new SplitItem(category, amount));
                     totalSplitAmount += amount;
@@ -100,17 +102,20 @@ public class SplitTransactionController {
             }
         }
 
-        if (Math.abs(totalSplitAmount - totalAmount) > 0.001) {
+        if (totalSplitAmount != totalAmountMinor) {
             showAlert(Alert.AlertType.ERROR, "Validation Error", "The split amounts do not add up to the total.");
             return;
         }
 
         try {
+            List<Transaction> transactions = new ArrayList<>();
             for (int i = 0; i < splits.size(); i++) {
                 SplitItem split = splits.get(i);
                 String splitDescription = String.format("%s (Split %d/%d)", description, i + 1, splits.size());
-                service.addTransaction(date, split.amount, splitDescription, split.category);
+                transactions.add(new Transaction(date, Money.toMajor(split.amountMinor), splitDescription, split.category));
             }
+            // All parts are saved together, so a failure never leaves a partial split behind
+            service.addTransactions(transactions);
             splitSuccessful = true;
             closeWindow();
         } catch (Exception e) {
@@ -142,7 +147,7 @@ public class SplitTransactionController {
 
     private static class SplitItem {
         final String category;
-        final double amount;
-        SplitItem(String category, double amount) { this.category = category; this.amount = amount; }
+        final long amountMinor;
+        SplitItem(String category, long amountMinor) { this.category = category; this.amountMinor = amountMinor; }
     }
 }
\ No newline at end of file
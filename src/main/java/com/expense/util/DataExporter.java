@@ -3,32 +3,46 @@
 package com.expense.util;
 
 import com.expense.model.Budget;
-import com.expense.model.Transaction;
+import com.expense.model.Money;
+import com.expense.service.ExpenseService;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
 import java.util.List;
 
 public class DataExporter {
 
     /**
-     * Exports a list of transactions to a CSV file, correctly handling commas and quotes.
+     * Streams every transaction straight from the database into a CSV file, correctly handling commas and quotes.
+     * Rows are written as they are read, so memory use doesn't grow with the size of the ledger.
      * @param path The file path to save to.
-     * @param list The list of transactions to export.
+     * @param service The service to read transactions from.
+     * @return The number of transactions exported.
      */
-    public static void exportTransactions(String path, List<Transaction> list) throws IOException {
+    public static int exportTransactions(String path, ExpenseService service) throws IOException, SQLException {
         String[] HEADERS = { "Date", "Amount", "Description", "Category" };
+        int[] count = { 0 };
         // Use try-with-resources for automatic closing of the writer and printer
         try (FileWriter out = new FileWriter(path);
              CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT.builder().setHeader(HEADERS).build())) {
 
-            for (Transaction t : list) {
-                // This will correctly handle commas in the description by quoting the field
-                printer.printRecord(t.getDate(), t.getAmount(), t.getDescription(), t.getCategory());
-            }
+            service.forEachTransaction(t -> {
+                try {
+                    // This will correctly handle commas in the description by quoting the field
+                    printer.printRecord(t.getDate(), Money.toPlainString(t.amountMinor), t.description, t.category);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        return count[0];
     }
 
     /**
@@ -41,7 +55,7 @@ public class DataExporter {
         try (FileWriter out = new FileWriter(path);
              CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT.builder().setHeader(HEADERS).build())) {
             for (Budget b : list) {
-                printer.printRecord(b.getCategory(), b.getMonthlyLimit());
+                printer.printRecord(b.getCategory(), Money.toPlainString(b.getMonthlyLimitMinor()));
             }
         }
     }
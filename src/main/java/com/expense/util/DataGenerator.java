@@ -3,6 +3,7 @@
 package com.expense.util;
 
 import com.expense.db.Database;
+import com.expense.model.Money;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -30,10 +31,19 @@ public class DataGenerator {
         Database.createTables(); // Ensure tables exist
 
         // FIXED: SQL now correctly references the 'timestamp' column
-        String sql = "INSERT INTO transactions(timestamp, amount, description, category) VALUES(?,?,?,?)";
+        String sql = "INSERT INTO transactions(timestamp, amount, description, category_id) " +
+                "VALUES(?,?,?,(SELECT id FROM categories WHERE name = ?))";
 
         try (Connection conn = Database.connect();
              PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false); // One commit for the whole batch
+
+            try (PreparedStatement addCategory = conn.prepareStatement("INSERT OR IGNORE INTO categories(name) VALUES(?)")) {
+                for (String category : CATEGORIES) {
+                    addCategory.setString(1, category);
+                    addCategory.executeUpdate();
+                }
+            }
 
             for (int i = 0; i < numberOfTransactions; i++) {
                 LocalDate date = generateRandomDate();
@@ -43,7 +53,7 @@ public class DataGenerator {
 
                 // FIXED: Now correctly setting the date as a long (epoch day)
                 ps.setLong(1, date.toEpochDay());
-                ps.setDouble(2, amount);
+                ps.setLong(2, Money.toMinor(amount));
                 ps.setString(3, description);
                 ps.setString(4, category);
 
@@ -51,6 +61,7 @@ public class DataGenerator {
             }
 
             ps.executeBatch();
+            conn.commit();
         }
     }
 
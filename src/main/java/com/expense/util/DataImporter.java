@@ -2,7 +2,10 @@
 
 package com.expense.util;
 
+import com.expense.db.Database;
+import com.expense.db.SqliteProfile;
 import com.expense.ml.WekaPredictor;
+import com.expense.model.Transaction;
 import com.expense.service.ExpenseService;
 import javafx.concurrent.Task;
 import java.io.BufferedReader;
@@ -10,9 +13,15 @@ import java.io.File;
 import java.io.FileReader;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DataImporter {
 
+    // Rows are committed in chunks: one transaction per chunk instead of one per CSV line. Chunks already
+    // committed stay when a later one fails, so a failed import reports how far it got.
+    private static final int BATCH_SIZE = 1000;
+
     public static Task<String> createImportTask(File file, ExpenseService service, WekaPredictor categorizer) {
         return new Task<>() {
             @Override
@@ -20,6 +29,14 @@ public class DataImporter {
                 int successCount = 0;
                 int errorCount = 0;
                 int lineCount = 1;
+                int savedThroughLine = 1; // the header
+                List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+
+                // Relax durability while importing. The profile is process-wide, so anything else saved
+                // meanwhile (an edit made while the import runs) is also committed without fsync: a power
+                // loss or OS crash during the import can lose those writes along with the imported rows.
+                // An application crash loses nothing already committed.
+                SqliteProfile previousProfile = Database.switchProfile(SqliteProfile.BULK_LOAD);
 
                 // We assume CSV has 3 columns: Date,Description,Amount
                 try (BufferedReader br = new BufferedReader(new FileReader(file))) {
@@ -46,18 +63,37 @@ public class DataImporter {
                             WekaPredictor.Result prediction = categorizer.predict(description);
                             String category = prediction.category;
 
-                            // Call the new service method with the LocalDate object
-                            service.addTransaction(date, amount, description, category);
-                            successCount++;
+                            batch.add(new Transaction(date, amount, description, category));
+                            if (batch.size() == BATCH_SIZE) {
+                                commit(service, batch, successCount, savedThroughLine);
+                                successCount += batch.size();
+                                savedThroughLine = lineCount;
+                                batch.clear();
+                            }
 
                         } catch (NumberFormatException | DateTimeParseException e) {
                             System.err.println("Skipping row with bad data format " + lineCount + ": " + e.getMessage());
                             errorCount++;
                         }
                     }
+                    commit(service, batch, successCount, savedThroughLine);
+                    successCount += batch.size();
+                } finally {
+                    Database.switchProfile(previousProfile);
                 }
                 return String.format("Import complete.\nSuccessfully imported: %d transactions.\nFailed to import: %d rows.", successCount, errorCount);
             }
         };
     }
+
+    /** Saves one chunk; if that fails, says what earlier chunks already saved, so it isn't imported twice. */
+    private static void commit(ExpenseService service, List<Transaction> batch, int saved, int savedThroughLine) throws Exception {
+        try {
+            service.addTransactions(batch);
+        } catch (Exception e) {
+            if (saved == 0) throw e;
+            throw new Exception(String.format("%s%nLines 2 to %d were already imported (%d transactions); "
+                    + "remove them from the file before importing it again.", e.getMessage(), savedThroughLine, saved), e);
+        }
+    }
 }
\ No newline at end of file